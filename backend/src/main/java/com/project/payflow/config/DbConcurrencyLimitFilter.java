@@ -0,0 +1,181 @@
+package com.project.payflow.config;
+
+import com.project.payflow.scheduler.ReminderScheduler;
+import com.project.payflow.service.NotificationDeliveryService;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Borne le nombre de requêtes /api/me/* traitées en même temps par la taille du pool Hikari,
+ * moins les connexions que les tâches de fond peuvent tenir en même temps : workers d'envoi
+ * (workers-per-channel x canaux), shards de rappels (payflow.reminders.concurrency) et
+ * OTHER_BACKGROUND_CONNECTIONS pour les autres tâches. La connexion LISTEN du flux SSE est hors du pool.
+ *
+ * Avec les threads virtuels, Tomcat n'a plus de plafond de threads : sans cette borne, les requêtes
+ * s'empileraient sur le pool jusqu'au timeout Hikari (30 s). Ici une requête attend au plus
+ * acquire-timeout son tour, puis reçoit un 503 avec Retry-After.
+ */
+@Component
+@ConditionalOnProperty(name = "payflow.concurrency.limit.enabled", havingValue = "true")
+public class DbConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(DbConcurrencyLimitFilter.class);
+
+    // Boucle dispatchPending, jauge du backlog sortant, réservation des shards de rappels
+    // et publication SSE (thread d'écoute LISTEN/NOTIFY)
+    private static final int OTHER_BACKGROUND_CONNECTIONS = 4;
+
+    private final Semaphore permits;
+    private final Duration acquireTimeout;
+    private final Counter rejected;
+
+    public DbConcurrencyLimitFilter(DataSource dataSource,
+                                    MeterRegistry meterRegistry,
+                                    NotificationDeliveryService notificationDeliveryService,
+                                    ReminderScheduler reminderScheduler,
+                                    @Value("${payflow.concurrency.max-concurrent:0}") int maxConcurrent,
+                                    @Value("${payflow.concurrency.reserved-connections:-1}") int reservedConnections,
+                                    @Value("${payflow.concurrency.acquire-timeout:PT2S}") Duration acquireTimeout) {
+        int limit;
+        if (maxConcurrent > 0) {
+            limit = maxConcurrent;
+        } else {
+            int reserved = reservedConnections >= 0
+                    ? reservedConnections
+                    : notificationDeliveryService.getMaxWorkers() + reminderScheduler.getConcurrency()
+                            + OTHER_BACKGROUND_CONNECTIONS;
+            int poolSize = poolSize(dataSource);
+            limit = poolSize - reserved;
+            if (limit < 1) {
+                throw new IllegalStateException("Hikari pool of " + poolSize + " connections leaves no room for "
+                        + "/api/me requests once " + reserved + " are reserved for background work: raise "
+                        + "spring.datasource.hikari.maximum-pool-size or set payflow.concurrency.max-concurrent");
+            }
+            log.info("{} of {} pooled connections reserved for background work", reserved, poolSize);
+        }
+        this.permits = new Semaphore(limit, true); // équitable : premier arrivé, premier servi
+        this.acquireTimeout = acquireTimeout;
+
+        Gauge.builder("payflow.http.limiter.in-flight", permits, p -> limit - p.availablePermits())
+                .description("Requêtes /api/me en cours de traitement")
+                .register(meterRegistry);
+        Gauge.builder("payflow.http.limiter.waiting", permits, Semaphore::getQueueLength)
+                .description("Requêtes /api/me en attente d'un permis")
+                .register(meterRegistry);
+        this.rejected = meterRegistry.counter("payflow.http.limiter.rejected");
+
+        log.info("At most {} concurrent /api/me requests (waiting up to {})", limit, acquireTimeout);
+    }
+
+    private static int poolSize(DataSource dataSource) {
+        try {
+            return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+        } catch (SQLException e) {
+            throw new IllegalStateException(
+                    "payflow.concurrency.max-concurrent is required when the DataSource is not a Hikari pool", e);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(request.getContextPath() + "/api/me/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejected.increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Too many concurrent requests");
+            return;
+        }
+
+        // Une réponse asynchrone (export StreamingResponseBody...) garde son permis jusqu'à la fin
+        // du traitement async. Exception : le flux SSE le rend dès la requête initiale, ses envois
+        // ultérieurs passent par le thread d'écoute, compté dans les connexions réservées.
+        boolean releaseNow = true;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted() && !isEventStream(response)) {
+                request.getAsyncContext().addListener(new ReleaseOnCompletion());
+                releaseNow = false;
+            }
+        } finally {
+            if (releaseNow) {
+                permits.release();
+            }
+        }
+    }
+
+    private static boolean isEventStream(HttpServletResponse response) {
+        String contentType = response.getContentType();
+        return contentType != null && contentType.startsWith(MediaType.TEXT_EVENT_STREAM_VALUE);
+    }
+
+    /** Rend le permis une seule fois, à la fin (ou en erreur, ou au timeout) du traitement async. */
+    private class ReleaseOnCompletion implements AsyncListener {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Nouveau cycle async (redispatch) : l'écouteur doit être ré-enregistré
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+}
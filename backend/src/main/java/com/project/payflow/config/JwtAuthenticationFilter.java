@@ -2,12 +2,14 @@
 package com.project.payflow.config;
 
 import com.project.payflow.entities.Merchant;
-import com.project.payflow.repository.MerchantRepository;
 import com.project.payflow.security.JwtService;
+import com.project.payflow.security.MerchantPrincipalCache;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -21,17 +23,16 @@ import java.util.Collections;
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
+
     private final JwtService jwtService;
-    private final MerchantRepository merchantRepository;
+    private final MerchantPrincipalCache merchantPrincipalCache;
 
-    public JwtAuthenticationFilter(JwtService jwtService, MerchantRepository merchantRepository) {
+    public JwtAuthenticationFilter(JwtService jwtService, MerchantPrincipalCache merchantPrincipalCache) {
         this.jwtService = jwtService;
-        this.merchantRepository = merchantRepository;
+        this.merchantPrincipalCache = merchantPrincipalCache;
     }
 
-   // src/main/java/com/project/payflow/config/JwtAuthenticationFilter.java
-// src/main/java/com/project/payflow/config/JwtAuthenticationFilter.java
-
 @Override
 protected void doFilterInternal(HttpServletRequest request,
                                 HttpServletResponse response,
@@ -48,12 +49,10 @@ protected void doFilterInternal(HttpServletRequest request,
     if (token != null && SecurityContextHolder.getContext().getAuthentication() == null) {
         try {
             Long merchantId = jwtService.extractMerchantId(token);
-            System.out.println("[JWT FILTER] merchantId from token = " + merchantId);
 
-            Merchant merchant = merchantRepository.findById(merchantId).orElse(null);
+            // Merchant en cache (TTL) : pas d'aller-retour en base à chaque requête
+            Merchant merchant = merchantPrincipalCache.get(merchantId);
             if (merchant != null) {
-                System.out.println("[JWT FILTER] Merchant found: " + merchant.getPhone());
-
                 UsernamePasswordAuthenticationToken auth =
                         new UsernamePasswordAuthenticationToken(
                                 merchant,
@@ -63,19 +62,14 @@ protected void doFilterInternal(HttpServletRequest request,
                 auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(auth);
             } else {
-                System.out.println("[JWT FILTER] No merchant for id " + merchantId);
+                // INFO : échantillonné en prod (payflow.logging.sample.auth)
+                log.info("No merchant for id {}", merchantId);
             }
         } catch (Exception e) {
-            e.printStackTrace();
-        }
-    } else {
-        if (token == null) {
-            System.out.println("[JWT FILTER] No token for " + request.getRequestURI());
-        } else {
-            System.out.println("[JWT FILTER] Authentication already present for " + request.getRequestURI());
+            log.info("Invalid JWT for {}: {}", request.getRequestURI(), e.getMessage());
         }
     }
 
     chain.doFilter(request, response);
 }
-}
\ No newline at end of file
+}
@@ -0,0 +1,61 @@
+package com.project.payflow.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Échantillonnage des logs à fort volume (un par notification, un par requête...) :
+ * pour les loggers sous "loggerName", seul un événement sur "rate" de niveau inférieur ou égal
+ * à "level" est conservé. Les niveaux supérieurs (WARN, ERROR par défaut) passent toujours.
+ *
+ * Filtre "turbo" : la décision est prise avant la construction de l'événement,
+ * les messages écartés ne coûtent ni formatage ni passage par l'appender.
+ */
+public class SamplingTurboFilter extends TurboFilter {
+
+    private final AtomicLong counter = new AtomicLong();
+
+    private String loggerName = "";
+    private Level level = Level.INFO;
+    private int rate = 100;
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level eventLevel, String format, Object[] params, Throwable t) {
+        if (!isStarted() || eventLevel == null || format == null) {
+            return FilterReply.NEUTRAL; // isXxxEnabled() : pas un événement, on ne compte pas
+        }
+        if (eventLevel.toInt() > level.toInt()) {
+            return FilterReply.NEUTRAL;
+        }
+        if (!logger.getName().startsWith(loggerName)) {
+            return FilterReply.NEUTRAL;
+        }
+        return counter.getAndIncrement() % rate == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    @Override
+    public void start() {
+        if (rate < 1) {
+            addError("rate must be >= 1 for sampling filter on '" + loggerName + "'");
+            return;
+        }
+        super.start();
+    }
+
+    public void setLoggerName(String loggerName) {
+        this.loggerName = loggerName;
+    }
+
+    public void setLevel(String level) {
+        this.level = Level.toLevel(level, Level.INFO);
+    }
+
+    public void setRate(int rate) {
+        this.rate = rate;
+    }
+}
@@ -1,6 +1,8 @@
 // src/main/java/com/project/payflow/config/SecurityConfig.java
 package com.project.payflow.config;
 
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -16,6 +18,13 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 @Configuration
 public class SecurityConfig {
 
+    // Port de l'Actuator (management.server.port), lié à une interface interne ; -1 s'il partage le port de l'API
+    private final int managementPort;
+
+    public SecurityConfig(@Value("${management.server.port:-1}") int managementPort) {
+        this.managementPort = managementPort;
+    }
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http,
                                                    JwtAuthenticationFilter jwtFilter) throws Exception {
@@ -25,9 +34,15 @@ public class SecurityConfig {
             .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
                  .requestMatchers("/error").permitAll()
+                // Fin des réponses asynchrones (flux SSE) : la requête initiale a déjà été authentifiée
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 // Endpoints publics (inscription + login)
                 .requestMatchers(HttpMethod.POST, "/api/auth/register").permitAll()
                 .requestMatchers(HttpMethod.POST, "/api/auth/login").permitAll()
+                // Santé publique ; les métriques (scrape Prometheus) seulement sur le port interne de l'Actuator
+                .requestMatchers(HttpMethod.GET, "/actuator/health").permitAll()
+                .requestMatchers(request -> managementPort > 0 && request.getLocalPort() == managementPort
+                        && "/actuator/prometheus".equals(request.getRequestURI())).permitAll()
                 // Facultatif : autoriser aussi les OPTIONS pour préflight CORS
                 .requestMatchers(HttpMethod.OPTIONS, "/api/**").permitAll()
                 // Tout le reste nécessite un JWT valide
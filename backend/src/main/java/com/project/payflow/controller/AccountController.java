@@ -4,6 +4,7 @@ package com.project.payflow.controller;
 import com.project.payflow.dto.ChangePasswordRequest;
 import com.project.payflow.entities.Merchant;
 import com.project.payflow.repository.MerchantRepository;
+import com.project.payflow.security.MerchantPrincipalCache;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -17,11 +18,14 @@ public class AccountController {
 
     private final MerchantRepository merchantRepository;
     private final PasswordEncoder passwordEncoder;
+    private final MerchantPrincipalCache merchantPrincipalCache;
 
     public AccountController(MerchantRepository merchantRepository,
-                             PasswordEncoder passwordEncoder) {
+                             PasswordEncoder passwordEncoder,
+                             MerchantPrincipalCache merchantPrincipalCache) {
         this.merchantRepository = merchantRepository;
         this.passwordEncoder = passwordEncoder;
+        this.merchantPrincipalCache = merchantPrincipalCache;
     }
 
     private Merchant getCurrentMerchant() {
@@ -47,8 +51,11 @@ public class AccountController {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Current password is incorrect");
         }
 
-        // Mettre à jour le mot de passe
-        current.setPasswordHash(passwordEncoder.encode(req.getNewPassword()));
-        merchantRepository.save(current);
+        // Mettre à jour le mot de passe sur une copie fraîche (le principal est partagé via le cache)
+        Merchant merchant = merchantRepository.findById(current.getId())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated"));
+        merchant.setPasswordHash(passwordEncoder.encode(req.getNewPassword()));
+        merchantRepository.save(merchant);
+        merchantPrincipalCache.invalidate(merchant.getId());
     }
 }
\ No newline at end of file
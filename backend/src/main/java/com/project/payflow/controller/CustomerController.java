@@ -3,12 +3,13 @@ package com.project.payflow.controller;
 
 import com.project.payflow.dto.CreateCustomerRequest;
 import com.project.payflow.dto.CustomerDto;
+import com.project.payflow.dto.OverdueCustomerDto;
 import com.project.payflow.dto.UpdateCustomerRequest;
 import com.project.payflow.entities.Customer;
 import com.project.payflow.entities.Merchant;
 import com.project.payflow.repository.CustomerRepository;
 import com.project.payflow.repository.MerchantRepository;
-import com.project.payflow.repository.TransactionRepository;
+import com.project.payflow.service.BalanceService;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -16,7 +17,6 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -26,14 +26,14 @@ public class CustomerController {
 
     private final CustomerRepository customerRepository;
     private final MerchantRepository merchantRepository;
-    private final TransactionRepository transactionRepository;
+    private final BalanceService balanceService;
 
     public CustomerController(CustomerRepository customerRepository,
                               MerchantRepository merchantRepository,
-                              TransactionRepository transactionRepository) {
+                              BalanceService balanceService) {
         this.customerRepository = customerRepository;
         this.merchantRepository = merchantRepository;
-        this.transactionRepository = transactionRepository;
+        this.balanceService = balanceService;
     }
     private Long getCurrentMerchantId()
     {
@@ -46,11 +46,19 @@ public class CustomerController {
         return m.getId();
     }
 
+    // Vérifie que ce client appartient bien au merchant connecté
+    private Customer findOwnedCustomer(Long merchantId, Long customerId) {
+        Customer customer = customerRepository.findById(customerId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Customer not found"));
+        if (!customer.getMerchant().getId().equals(merchantId)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied");
+        }
+        return customer;
+    }
+
     @GetMapping
     public List<CustomerDto> list() {
            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-    System.out.println("[CUSTOMERS] Auth = " + auth);
-
     if (auth == null || !(auth.getPrincipal() instanceof Merchant)) {
         throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Not authenticated");
     }
@@ -60,13 +68,8 @@ public class CustomerController {
         // 1) charger tous les clients du merchant
         List<Customer> customers = customerRepository.findByMerchantId(merchantId);
 
-        // 2) récupérer les soldes par client à partir des transactions
-        Map<Long, BigDecimal> balances = new HashMap<>();
-        for (Object[] row : transactionRepository.findClientBalancesByMerchant(merchantId)) {
-            Long customerId = (Long) row[0];
-            BigDecimal balance = (BigDecimal) row[1];
-            balances.put(customerId, balance);
-        }
+        // 2) récupérer les soldes par client depuis la projection customer_balances
+        Map<Long, BigDecimal> balances = balanceService.getBalancesByMerchant(merchantId);
 
         // 3) construire les DTO avec totalDue
         return customers.stream()
@@ -100,19 +103,20 @@ public class CustomerController {
         // à la création, totalDue = 0
         return CustomerDto.fromEntity(saved, BigDecimal.ZERO);
     }
+    // GET /api/me/customers/{customerId}
+    @GetMapping("/{customerId}")
+    public CustomerDto get(@PathVariable Long customerId) {
+        Long merchantId = getCurrentMerchantId();
+        Customer customer = findOwnedCustomer(merchantId, customerId);
+        return CustomerDto.fromEntity(customer, balanceService.getCustomerBalance(merchantId, customerId));
+    }
+
     // PUT /api/me/customers/{customerId}
     @PutMapping("/{customerId}")
     public CustomerDto update(@PathVariable Long customerId,
                               @RequestBody UpdateCustomerRequest req) {
         Long merchantId = getCurrentMerchantId();
-
-        Customer customer = customerRepository.findById(customerId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Customer not found"));
-
-        // Vérifier que ce client appartient bien au merchant connecté
-        if (!customer.getMerchant().getId().equals(merchantId)) {
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied");
-        }
+        Customer customer = findOwnedCustomer(merchantId, customerId);
 
         if (req.getName() != null && !req.getName().isBlank()) {
             customer.setName(req.getName());
@@ -122,44 +126,26 @@ public class CustomerController {
 
         Customer saved = customerRepository.save(customer);
 
-        // recalculer son totalDue (facultatif, tu peux réutiliser la logique existante)
-        BigDecimal totalDue = BigDecimal.ZERO;
-        for (Object[] row : transactionRepository.findClientBalancesByMerchant(merchantId)) {
-            Long cId = (Long) row[0];
-            if (cId.equals(saved.getId())) {
-                totalDue = (BigDecimal) row[1];
-                break;
-            }
-        }
-
-        return CustomerDto.fromEntity(saved, totalDue);
+        // solde du seul client modifié, lu dans la projection customer_balances
+        return CustomerDto.fromEntity(saved, balanceService.getCustomerBalance(merchantId, saved.getId()));
     }
     // DELETE /api/me/customers/{customerId}
     @DeleteMapping("/{customerId}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void delete(@PathVariable Long customerId) {
         Long merchantId = getCurrentMerchantId();
-
-        Customer customer = customerRepository.findById(customerId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Customer not found"));
-
-        if (!customer.getMerchant().getId().equals(merchantId)) {
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied");
-        }
+        Customer customer = findOwnedCustomer(merchantId, customerId);
 
         // Grâce au ON DELETE CASCADE sur transactions.customer_id et .merchant_id
         // les transactions liées seront supprimées automatiquement.
         customerRepository.delete(customer);
     }
 
+    // GET /api/me/customers/overdue : clients en retard avec leur montant échu, les plus anciens retards d'abord
     @GetMapping("/overdue")
-    public List<Long> getOverdueCustomers() {
+    public List<OverdueCustomerDto> getOverdueCustomers() {
         Long merchantId = getCurrentMerchantId();
-   
-        List<Long> overdueCustomerIds =transactionRepository.findOverdueCustomerIds(merchantId);
-
-        return overdueCustomerIds;
-        
+        return balanceService.getOverdueCustomers(merchantId);
     }
 
-}
\ No newline at end of file
+}
@@ -1,14 +1,24 @@
 package com.project.payflow.controller;
 
 import com.project.payflow.dto.NotificationDto;
+import com.project.payflow.dto.NotificationPageDto;
 import com.project.payflow.entities.Merchant;
 import com.project.payflow.entities.Notification;
 import com.project.payflow.repository.NotificationRepository;
+import com.project.payflow.service.NotificationStreamService;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.security.core.Authentication;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
 import java.util.List;
 import java.util.Map;
 
@@ -16,10 +26,19 @@ import java.util.Map;
 @RequestMapping("/api/me/notifications")
 public class NotificationController {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+
+    // Curseur initial : après toutes les notifications
+    private static final OffsetDateTime MAX_CREATED_AT = OffsetDateTime.of(9999, 12, 31, 0, 0, 0, 0, ZoneOffset.UTC);
+
     private final NotificationRepository notificationRepository;
+    private final NotificationStreamService notificationStreamService;
 
-    public NotificationController(NotificationRepository notificationRepository) {
+    public NotificationController(NotificationRepository notificationRepository,
+                                  NotificationStreamService notificationStreamService) {
         this.notificationRepository = notificationRepository;
+        this.notificationStreamService = notificationStreamService;
     }
 
     private Merchant getCurrentMerchant(Authentication auth) {
@@ -29,26 +48,69 @@ public class NotificationController {
         return merchant;
     }
 
+    // Les plus récentes (size au plus) ; la suite via /page
     @GetMapping
-    public List<NotificationDto> list(Authentication auth) {
+    public List<NotificationDto> list(@RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int size,
+                                      Authentication auth) {
         Merchant merchant = getCurrentMerchant(auth);
-        List<NotificationDto> notifications = notificationRepository
-                .findByMerchantIdOrderByCreatedAtDesc(merchant.getId())
-                .stream()
-                .map(NotificationDto::fromEntity)
-                .toList();
-    return notifications;
+        checkPageSize(size);
+        return notificationRepository.findPageByMerchant(
+                merchant.getId(), MAX_CREATED_AT, Long.MAX_VALUE, Limit.of(size));
+    }
+
+    // GET /api/me/notifications/page?cursor=...&size=50 : pagination keyset sur (created_at desc, id desc)
+    @GetMapping("/page")
+    public NotificationPageDto page(@RequestParam(required = false) String cursor,
+                                    @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int size,
+                                    Authentication auth) {
+        Merchant merchant = getCurrentMerchant(auth);
+        checkPageSize(size);
+
+        OffsetDateTime cursorAt = MAX_CREATED_AT;
+        long cursorId = Long.MAX_VALUE;
+
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = decodeCursor(cursor);
+            cursorId = Long.parseLong(parts[0]);
+            cursorAt = OffsetDateTime.parse(parts[1]);
+        }
+
+        // On demande un élément de plus pour savoir s'il existe une page suivante
+        List<NotificationDto> rows = notificationRepository.findPageByMerchant(
+                merchant.getId(), cursorAt, cursorId, Limit.of(size + 1));
+
+        if (rows.size() <= size) {
+            return new NotificationPageDto(rows, null);
+        }
+
+        List<NotificationDto> items = rows.subList(0, size);
+        NotificationDto last = items.get(size - 1);
+        return new NotificationPageDto(items, encodeCursor(last.getId(), last.getCreatedAt()));
     }
 
     @GetMapping("/unread-count")
     public Map<String, Long> unreadCount(Authentication auth) {
         Merchant merchant = getCurrentMerchant(auth);
-        long count = notificationRepository
-                .findByMerchantIdAndReadFalseOrderByCreatedAtDesc(merchant.getId())
-                .size();
+        long count = notificationRepository.countByMerchantIdAndReadFalse(merchant.getId());
         return Map.of("unreadCount", count);
     }
 
+    // Tout marquer comme lu : un seul UPDATE, quel que soit le nombre de notifications
+    @PostMapping("/read-all")
+    @Transactional
+    public Map<String, Integer> markAllAsRead(Authentication auth) {
+        Merchant merchant = getCurrentMerchant(auth);
+        int updated = notificationRepository.markAllAsReadByMerchantId(merchant.getId());
+        return Map.of("updated", updated);
+    }
+
+    // Flux SSE : events "notification" (NotificationDto) et "unread-count" ({ unreadCount })
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(Authentication auth) {
+        Merchant merchant = getCurrentMerchant(auth);
+        return notificationStreamService.subscribe(merchant.getId());
+    }
+
     @PostMapping("/{id}/read")
     public void markAsRead(@PathVariable Long id, Authentication auth) {
         Merchant merchant = getCurrentMerchant(auth);
@@ -63,4 +125,28 @@ public class NotificationController {
         n.setRead(true);
         notificationRepository.save(n);
     }
-}
\ No newline at end of file
+
+    private static void checkPageSize(int size) {
+        if (size <= 0 || size > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+    }
+
+    // id en premier : la date ISO contient elle-même des ':'
+    private static String encodeCursor(Long id, OffsetDateTime createdAt) {
+        String raw = id + ":" + createdAt;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", 2);
+            Long.parseLong(parts[0]);
+            OffsetDateTime.parse(parts[1]);
+            return parts;
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+}
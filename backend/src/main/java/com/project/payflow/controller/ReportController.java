@@ -0,0 +1,74 @@
+// src/main/java/com/project/payflow/controller/ReportController.java
+package com.project.payflow.controller;
+
+import com.project.payflow.dto.AgingCustomerReportDto;
+import com.project.payflow.dto.AgingReportDto;
+import com.project.payflow.entities.Customer;
+import com.project.payflow.entities.Merchant;
+import com.project.payflow.repository.CustomerRepository;
+import com.project.payflow.service.AgingReportService;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+@RestController
+@RequestMapping("/api/me/reports")
+public class ReportController {
+
+    private final AgingReportService agingReportService;
+    private final CustomerRepository customerRepository;
+
+    public ReportController(AgingReportService agingReportService,
+                            CustomerRepository customerRepository) {
+        this.agingReportService = agingReportService;
+        this.customerRepository = customerRepository;
+    }
+
+    private Long getCurrentMerchantId() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !(auth.getPrincipal() instanceof Merchant)) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated");
+        }
+        Merchant m = (Merchant) auth.getPrincipal();
+        return m.getId();
+    }
+
+    // Date de référence des tranches (AAAA-MM-JJ) : aujourd'hui par défaut, 400 si elle est invalide
+    private LocalDate parseAsOf(String asOf) {
+        if (asOf == null || asOf.isBlank()) {
+            return LocalDate.now();
+        }
+        try {
+            return LocalDate.parse(asOf);
+        } catch (DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid asOf");
+        }
+    }
+
+    // Balance âgée : restant dû par tranche (non échu, 0-30, 31-60, 61-90, 90+ jours) par client et au total
+    @GetMapping("/aging")
+    public AgingReportDto getAging(@RequestParam(required = false) String asOf) {
+        Long merchantId = getCurrentMerchantId();
+        return agingReportService.getAgingReport(merchantId, parseAsOf(asOf));
+    }
+
+    // Détail d'un client : ses crédits ouverts et leur tranche
+    @GetMapping("/aging/customers/{customerId}")
+    public AgingCustomerReportDto getCustomerAging(@PathVariable Long customerId,
+                                                   @RequestParam(required = false) String asOf) {
+        Long merchantId = getCurrentMerchantId();
+
+        Customer customer = customerRepository.findById(customerId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Customer not found"));
+        if (!customer.getMerchant().getId().equals(merchantId)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied");
+        }
+
+        return agingReportService.getCustomerAging(merchantId, customer, parseAsOf(asOf));
+    }
+}
@@ -2,8 +2,8 @@
 package com.project.payflow.controller;
 
 import com.project.payflow.dto.CreateTransactionRequest;
-import com.project.payflow.dto.PaymentAllocationRequest;
 import com.project.payflow.dto.TransactionDto;
+import com.project.payflow.dto.TransactionPageDto;
 import com.project.payflow.entities.Customer;
 import com.project.payflow.entities.Merchant;
 import com.project.payflow.entities.PaymentAllocation;
@@ -13,37 +13,68 @@ import com.project.payflow.repository.CustomerRepository;
 import com.project.payflow.repository.MerchantRepository;
 import com.project.payflow.repository.PaymentAllocationRepository;
 import com.project.payflow.repository.TransactionRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.ObjectMapper;
 import com.project.payflow.dto.CreditWithRemainingDto;
+import com.project.payflow.service.AllocationStrategy;
+import com.project.payflow.service.BalanceService;
 import com.project.payflow.service.CreditService;
+import com.project.payflow.service.PaymentAllocationService;
 import com.project.payflow.dto.CreditPaymentHistoryDto;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/me/transactions")
 public class TransactionController {
 
+    private static final String NDJSON = "application/x-ndjson";
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int EXPORT_BATCH_SIZE = 1000;
+
+    // Bornes utilisées quand la période est ouverte d'un côté
+    private static final LocalDate MIN_DATE = LocalDate.of(1, 1, 1);
+    private static final LocalDate MAX_DATE = LocalDate.of(9999, 12, 31);
+
     private final TransactionRepository transactionRepository;
     private final MerchantRepository merchantRepository;
     private final CustomerRepository customerRepository;
      private final PaymentAllocationRepository paymentAllocationRepository;
      private final CreditService creditService;
+     private final BalanceService balanceService;
+     private final PaymentAllocationService paymentAllocationService;
+     private final ObjectMapper objectMapper;
 
     public TransactionController(TransactionRepository transactionRepository,
                                  MerchantRepository merchantRepository,
-                                 CustomerRepository customerRepository,PaymentAllocationRepository paymentAllocationRepository,CreditService creditService) {
+                                 CustomerRepository customerRepository,PaymentAllocationRepository paymentAllocationRepository,CreditService creditService,
+                                 BalanceService balanceService,
+                                 PaymentAllocationService paymentAllocationService,
+                                 ObjectMapper objectMapper) {
         this.transactionRepository = transactionRepository;
         this.merchantRepository = merchantRepository;
         this.customerRepository = customerRepository;
         this.paymentAllocationRepository = paymentAllocationRepository;
         this.creditService = creditService;
+        this.balanceService = balanceService;
+        this.paymentAllocationService = paymentAllocationService;
+        this.objectMapper = objectMapper;
     }
 
     private Long getCurrentMerchantId() {
@@ -55,51 +86,114 @@ public class TransactionController {
         return m.getId();
     }
 
-    // src/main/java/com/project/payflow/controller/TransactionController.java
-
+    // Historique complet (compatibilité) : trié par la base, sans charger d'entités
 @GetMapping
 public List<TransactionDto> list(@RequestParam(required = false) String from,
                                  @RequestParam(required = false) String to) {
     Long merchantId = getCurrentMerchantId();
 
-    LocalDate fromDate = (from != null && !from.isBlank()) ? LocalDate.parse(from) : null;
-    LocalDate toDate = (to != null && !to.isBlank()) ? LocalDate.parse(to) : null;
-
-    List<Transaction> transactions;
-
-    if (fromDate != null && toDate != null) {
-        transactions = transactionRepository.findByMerchantIdAndTransactionDateBetween(
-                merchantId, fromDate, toDate
-        );
-    } else if (fromDate != null) {
-        transactions = transactionRepository.findByMerchantIdAndTransactionDateGreaterThanEqual(
-                merchantId, fromDate
-        );
-    } else if (toDate != null) {
-        transactions = transactionRepository.findByMerchantIdAndTransactionDateLessThanEqual(
-                merchantId, toDate
-        );
-    } else {
-        transactions = transactionRepository.findByMerchantId(merchantId);
+    LocalDate fromDate = (from != null && !from.isBlank()) ? LocalDate.parse(from) : MIN_DATE;
+    LocalDate toDate = (to != null && !to.isBlank()) ? LocalDate.parse(to) : MAX_DATE;
+
+    return transactionRepository.findPageByMerchant(
+            merchantId, fromDate, toDate, Long.MAX_VALUE, Limit.unlimited());
+}
+
+// GET /api/me/transactions/page?cursor=...&size=50 : pagination keyset
+@GetMapping("/page")
+public TransactionPageDto page(@RequestParam(required = false) String from,
+                               @RequestParam(required = false) String to,
+                               @RequestParam(required = false) String cursor,
+                               @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int size) {
+    Long merchantId = getCurrentMerchantId();
+
+    if (size <= 0 || size > MAX_PAGE_SIZE) {
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size must be between 1 and " + MAX_PAGE_SIZE);
     }
 
-    // Optionnel: trier ici si nécessaire
-    transactions.sort((a, b) -> {
-        int cmp = b.getTransactionDate().compareTo(a.getTransactionDate());
-        if (cmp != 0) return cmp;
-        return Long.compare(b.getId(), a.getId());
-    });
+    LocalDate fromDate = (from != null && !from.isBlank()) ? LocalDate.parse(from) : MIN_DATE;
+    LocalDate cursorDate = (to != null && !to.isBlank()) ? LocalDate.parse(to) : MAX_DATE;
+    long cursorId = Long.MAX_VALUE;
 
-    return transactions.stream()
-            .map(TransactionDto::fromEntity)
-            .toList();
+    if (cursor != null && !cursor.isBlank()) {
+        String[] parts = decodeCursor(cursor);
+        cursorDate = LocalDate.parse(parts[0]);
+        cursorId = Long.parseLong(parts[1]);
+    }
+
+    // On demande un élément de plus pour savoir s'il existe une page suivante
+    List<TransactionDto> rows = transactionRepository.findPageByMerchant(
+            merchantId, fromDate, cursorDate, cursorId, Limit.of(size + 1));
+
+    if (rows.size() <= size) {
+        return new TransactionPageDto(rows, null);
+    }
+
+    List<TransactionDto> items = rows.subList(0, size);
+    TransactionDto last = items.get(size - 1);
+    return new TransactionPageDto(items, encodeCursor(last.getTransactionDate(), last.getId()));
+}
+
+// GET /api/me/transactions/export : export NDJSON (une transaction par ligne), lu page par page
+@GetMapping(value = "/export", produces = NDJSON)
+public ResponseEntity<StreamingResponseBody> export(@RequestParam(required = false) String from,
+                                                    @RequestParam(required = false) String to) {
+    Long merchantId = getCurrentMerchantId();
+
+    LocalDate fromDate = (from != null && !from.isBlank()) ? LocalDate.parse(from) : MIN_DATE;
+    LocalDate toDate = (to != null && !to.isBlank()) ? LocalDate.parse(to) : MAX_DATE;
+
+    StreamingResponseBody body = out -> {
+        LocalDate cursorDate = toDate;
+        long cursorId = Long.MAX_VALUE;
+
+        while (true) {
+            List<TransactionDto> rows = transactionRepository.findPageByMerchant(
+                    merchantId, fromDate, cursorDate, cursorId, Limit.of(EXPORT_BATCH_SIZE));
+
+            for (TransactionDto dto : rows) {
+                out.write(objectMapper.writeValueAsBytes(dto));
+                out.write('\n');
+            }
+            out.flush();
+
+            if (rows.size() < EXPORT_BATCH_SIZE) {
+                break;
+            }
+            TransactionDto last = rows.get(rows.size() - 1);
+            cursorDate = last.getTransactionDate();
+            cursorId = last.getId();
+        }
+    };
+
+    return ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"transactions.ndjson\"")
+            .contentType(MediaType.parseMediaType(NDJSON))
+            .body(body);
+}
+
+private static String encodeCursor(LocalDate date, Long id) {
+    String raw = date + ":" + id;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+}
+
+private static String[] decodeCursor(String cursor) {
+    try {
+        String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        String[] parts = raw.split(":", 2);
+        LocalDate.parse(parts[0]);
+        Long.parseLong(parts[1]);
+        return parts;
+    } catch (RuntimeException e) {
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+    }
 }
 
     // Créer une transaction
    @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
+    @Transactional // transaction, allocations et solde projeté sont commités ensemble
     public TransactionDto create(@RequestBody CreateTransactionRequest request) {
-        System.out.println("[DEBUG BACK] CreateTransactionRequest.allocations = " + request.getAllocations());
         Long merchantId = getCurrentMerchantId();
 
         if (request.getCustomerId() == null) {
@@ -135,11 +229,21 @@ public List<TransactionDto> list(@RequestParam(required = false) String from,
                 .setDueDate(request.getDueDate())
                 .setPaymentMethod(request.getPaymentMethod())
                 .setInterestRate(request.getInterestRate())
-                .setLatePenalty(request.getLatePenalty());
+                .setLatePenalty(request.getLatePenalty())
+                // Un crédit démarre avec tout son montant restant dû
+                .setRemainingAmount(request.getType() == TransactionType.CREDIT ? request.getAmount() : null);
 
         Transaction saved = transactionRepository.save(tx);
+        balanceService.applyTransaction(saved);
 
-        // 2) Si c'est un paiement et qu'il y a des allocations, les créer
+        // 2) Paiement sans allocations : répartition automatique côté serveur
+        if (saved.getType() == TransactionType.PAYMENT &&
+                (request.getAllocations() == null || request.getAllocations().isEmpty()) &&
+                paymentAllocationService.isAutoAllocateEnabled()) {
+            paymentAllocationService.allocateAutomatically(saved);
+        }
+
+        // 3) Si c'est un paiement et qu'il y a des allocations, les créer
         if (saved.getType() == TransactionType.PAYMENT &&
                 request.getAllocations() != null &&
                 !request.getAllocations().isEmpty()) {
@@ -155,57 +259,21 @@ public List<TransactionDto> list(@RequestParam(required = false) String from,
                 );
             }
 
-            for (PaymentAllocationRequest allocReq : request.getAllocations()) {
-                if (allocReq.getCreditId() == null ||
-                    allocReq.getAmount() == null ||
-                    allocReq.getAmount().doubleValue() <= 0) {
-                    continue; // ou throw BAD_REQUEST si tu veux être strict
-                }
-
-                Transaction credit = transactionRepository.findById(allocReq.getCreditId())
-                        .orElseThrow(() -> new ResponseStatusException(
-                                HttpStatus.BAD_REQUEST, "Credit transaction not found: " + allocReq.getCreditId()
-                        ));
-
-                // Vérifier que c'est bien un CREDIT du même client/merchant
-                if (credit.getType() != TransactionType.CREDIT) {
-                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Allocated transaction is not a CREDIT");
-                }
-                if (!credit.getMerchant().getId().equals(merchantId) ||
-                        !credit.getCustomer().getId().equals(customer.getId())) {
-                    throw new ResponseStatusException(
-                            HttpStatus.BAD_REQUEST,
-                            "Credit does not belong to this merchant/customer"
-                    );
-                }
-
-
-                 // NOUVEAU: vérifier que l'allocation ne dépasse pas le reste dû
-        BigDecimal remaining = creditService.getRemainingAmountForCredit(credit);
-        if (allocReq.getAmount().compareTo(remaining) > 0) {
-            throw new ResponseStatusException(
-                    HttpStatus.BAD_REQUEST,
-                    "Allocated amount for credit " + credit.getId() +
-                    " exceeds remaining amount (" + remaining + ")"
-            );
-        }
-
-
-                PaymentAllocation allocation = new PaymentAllocation()
-                        .setMerchant(merchant)
-                        .setCustomer(customer)
-                        .setPayment(saved)
-                        .setCredit(credit)
-                        .setAllocatedAmount(allocReq.getAmount());
-
-                paymentAllocationRepository.save(allocation);
-            }
+            paymentAllocationService.allocate(merchant, customer, saved, request.getAllocations());
         }
 
         return TransactionDto.fromEntity(saved);
     }
 
 
+// POST /api/me/transactions/allocations/backfill : affecte les anciens paiements non répartis
+@PostMapping("/allocations/backfill")
+public Map<String, Integer> backfillAllocations(@RequestParam(required = false) AllocationStrategy strategy) {
+    Long merchantId = getCurrentMerchantId();
+    int payments = paymentAllocationService.backfillUnallocatedPayments(merchantId, strategy);
+    return Map.of("paymentsAllocated", payments);
+}
+
   // src/main/java/com/project/payflow/controller/TransactionController.java
 
 @GetMapping("/customer/{customerId}/credits")
@@ -0,0 +1,54 @@
+package com.project.payflow.dto;
+
+import com.project.payflow.service.AgingBucket;
+
+import java.math.BigDecimal;
+
+/**
+ * Restant dû par tranche d'ancienneté, pour un client (customerId renseigné) ou pour tout le merchant.
+ */
+public class AgingBucketsDto {
+
+    private Long customerId;
+    private String customerName;
+    private BigDecimal notDue = BigDecimal.ZERO;
+    private BigDecimal days0To30 = BigDecimal.ZERO;
+    private BigDecimal days31To60 = BigDecimal.ZERO;
+    private BigDecimal days61To90 = BigDecimal.ZERO;
+    private BigDecimal over90 = BigDecimal.ZERO;
+    private BigDecimal total = BigDecimal.ZERO;
+
+    public AgingBucketsDto(Long customerId, String customerName) {
+        this.customerId = customerId;
+        this.customerName = customerName;
+    }
+
+    public AgingBucketsDto add(AgingBucket bucket, BigDecimal amount) {
+        switch (bucket) {
+            case NOT_DUE -> notDue = notDue.add(amount);
+            case DAYS_0_30 -> days0To30 = days0To30.add(amount);
+            case DAYS_31_60 -> days31To60 = days31To60.add(amount);
+            case DAYS_61_90 -> days61To90 = days61To90.add(amount);
+            case OVER_90 -> over90 = over90.add(amount);
+        }
+        total = total.add(amount);
+        return this;
+    }
+
+    public AgingBucketsDto add(AgingBucketsDto other) {
+        return add(AgingBucket.NOT_DUE, other.notDue)
+                .add(AgingBucket.DAYS_0_30, other.days0To30)
+                .add(AgingBucket.DAYS_31_60, other.days31To60)
+                .add(AgingBucket.DAYS_61_90, other.days61To90)
+                .add(AgingBucket.OVER_90, other.over90);
+    }
+
+    public Long getCustomerId() { return customerId; }
+    public String getCustomerName() { return customerName; }
+    public BigDecimal getNotDue() { return notDue; }
+    public BigDecimal getDays0To30() { return days0To30; }
+    public BigDecimal getDays31To60() { return days31To60; }
+    public BigDecimal getDays61To90() { return days61To90; }
+    public BigDecimal getOver90() { return over90; }
+    public BigDecimal getTotal() { return total; }
+}
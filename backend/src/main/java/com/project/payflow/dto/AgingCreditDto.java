@@ -0,0 +1,45 @@
+package com.project.payflow.dto;
+
+import com.project.payflow.service.AgingBucket;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public class AgingCreditDto {
+
+    private Long id;
+    private String description;
+    private LocalDate transactionDate;
+    private LocalDate dueDate;
+    private BigDecimal amount;          // montant initial du crédit
+    private BigDecimal remainingAmount; // montant restant dû
+    private Long daysOverdue;           // jours depuis l'échéance (négatif si à venir, null sans échéance)
+    private AgingBucket bucket;
+
+    public AgingCreditDto(Long id,
+                          String description,
+                          LocalDate transactionDate,
+                          LocalDate dueDate,
+                          BigDecimal amount,
+                          BigDecimal remainingAmount,
+                          Long daysOverdue,
+                          AgingBucket bucket) {
+        this.id = id;
+        this.description = description;
+        this.transactionDate = transactionDate;
+        this.dueDate = dueDate;
+        this.amount = amount;
+        this.remainingAmount = remainingAmount;
+        this.daysOverdue = daysOverdue;
+        this.bucket = bucket;
+    }
+
+    public Long getId() { return id; }
+    public String getDescription() { return description; }
+    public LocalDate getTransactionDate() { return transactionDate; }
+    public LocalDate getDueDate() { return dueDate; }
+    public BigDecimal getAmount() { return amount; }
+    public BigDecimal getRemainingAmount() { return remainingAmount; }
+    public Long getDaysOverdue() { return daysOverdue; }
+    public AgingBucket getBucket() { return bucket; }
+}
@@ -0,0 +1,21 @@
+package com.project.payflow.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public class AgingCustomerReportDto {
+
+    private LocalDate asOf;
+    private AgingBucketsDto buckets;      // tranches du client
+    private List<AgingCreditDto> credits; // crédits ouverts, par échéance
+
+    public AgingCustomerReportDto(LocalDate asOf, AgingBucketsDto buckets, List<AgingCreditDto> credits) {
+        this.asOf = asOf;
+        this.buckets = buckets;
+        this.credits = credits;
+    }
+
+    public LocalDate getAsOf() { return asOf; }
+    public AgingBucketsDto getBuckets() { return buckets; }
+    public List<AgingCreditDto> getCredits() { return credits; }
+}
@@ -0,0 +1,21 @@
+package com.project.payflow.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public class AgingReportDto {
+
+    private LocalDate asOf;                   // date de référence des tranches
+    private AgingBucketsDto total;            // tous clients confondus
+    private List<AgingBucketsDto> customers;  // clients avec un restant dû, les plus gros d'abord
+
+    public AgingReportDto(LocalDate asOf, AgingBucketsDto total, List<AgingBucketsDto> customers) {
+        this.asOf = asOf;
+        this.total = total;
+        this.customers = customers;
+    }
+
+    public LocalDate getAsOf() { return asOf; }
+    public AgingBucketsDto getTotal() { return total; }
+    public List<AgingBucketsDto> getCustomers() { return customers; }
+}
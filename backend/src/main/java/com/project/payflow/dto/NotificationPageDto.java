@@ -0,0 +1,22 @@
+package com.project.payflow.dto;
+
+import java.util.List;
+
+public class NotificationPageDto {
+
+    private List<NotificationDto> items;
+    private String nextCursor; // null quand il n'y a plus de page
+
+    public NotificationPageDto(List<NotificationDto> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<NotificationDto> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
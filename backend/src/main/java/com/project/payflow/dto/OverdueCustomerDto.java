@@ -0,0 +1,39 @@
+package com.project.payflow.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public class OverdueCustomerDto {
+
+    private Long id;
+    private String name;
+    private String phone;
+    private String notes;
+    private BigDecimal totalDue;              // solde du client
+    private BigDecimal overdueAmount;         // part du solde dont l'échéance est dépassée
+    private LocalDate oldestUnpaidDueDate;    // plus ancienne échéance impayée
+
+    public OverdueCustomerDto(Long id,
+                              String name,
+                              String phone,
+                              String notes,
+                              BigDecimal totalDue,
+                              BigDecimal overdueAmount,
+                              LocalDate oldestUnpaidDueDate) {
+        this.id = id;
+        this.name = name;
+        this.phone = phone;
+        this.notes = notes;
+        this.totalDue = totalDue;
+        this.overdueAmount = overdueAmount;
+        this.oldestUnpaidDueDate = oldestUnpaidDueDate;
+    }
+
+    public Long getId() { return id; }
+    public String getName() { return name; }
+    public String getPhone() { return phone; }
+    public String getNotes() { return notes; }
+    public BigDecimal getTotalDue() { return totalDue; }
+    public BigDecimal getOverdueAmount() { return overdueAmount; }
+    public LocalDate getOldestUnpaidDueDate() { return oldestUnpaidDueDate; }
+}
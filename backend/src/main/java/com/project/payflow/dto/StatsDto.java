@@ -5,6 +5,7 @@ import java.math.BigDecimal;
 public class StatsDto {
 
     private BigDecimal totalDue;
+    private BigDecimal totalCredits;
     private BigDecimal totalPayments;
     private long clientsWithDebt;
     private long clientsTotal;
@@ -20,6 +21,15 @@ public class StatsDto {
         return totalDue;
     }
 
+    public BigDecimal getTotalCredits() {
+        return totalCredits;
+    }
+
+    public StatsDto setTotalCredits(BigDecimal totalCredits) {
+        this.totalCredits = totalCredits;
+        return this;
+    }
+
     public BigDecimal getTotalPayments() {
         return totalPayments;
     }
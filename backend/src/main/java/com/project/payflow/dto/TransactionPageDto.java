@@ -0,0 +1,22 @@
+package com.project.payflow.dto;
+
+import java.util.List;
+
+public class TransactionPageDto {
+
+    private List<TransactionDto> items;
+    private String nextCursor; // null quand il n'y a plus de page
+
+    public TransactionPageDto(List<TransactionDto> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<TransactionDto> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
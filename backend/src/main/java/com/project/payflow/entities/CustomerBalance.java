@@ -0,0 +1,79 @@
+package com.project.payflow.entities;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+
+/**
+ * Projection maintenue du solde d'un client (une ligne par client).
+ * Mise à jour dans la même transaction que chaque insertion dans transactions,
+ * ce qui évite de resommer tout l'historique à chaque lecture.
+ */
+@Entity
+@Table(name = "customer_balances", schema = "payflow")
+public class CustomerBalance {
+
+    @Id
+    @Column(name = "customer_id")
+    private Long customerId;
+
+    @Column(name = "merchant_id", nullable = false)
+    private Long merchantId;
+
+    @Column(name = "total_credits", nullable = false, precision = 18, scale = 2)
+    private BigDecimal totalCredits = BigDecimal.ZERO;
+
+    @Column(name = "total_payments", nullable = false, precision = 18, scale = 2)
+    private BigDecimal totalPayments = BigDecimal.ZERO;
+
+    // Colonne générée côté base : total_credits - total_payments
+    @Column(name = "balance", precision = 18, scale = 2, insertable = false, updatable = false)
+    private BigDecimal balance;
+
+    // Somme des restants dus des crédits ouverts (les paiements non affectés n'y sont pas déduits)
+    @Column(name = "open_credit_amount", nullable = false, precision = 18, scale = 2)
+    private BigDecimal openCreditAmount = BigDecimal.ZERO;
+
+    // Échéance du plus ancien crédit encore ouvert (null si aucun) : client en retard si < aujourd'hui
+    @Column(name = "oldest_unpaid_due_date")
+    private LocalDate oldestUnpaidDueDate;
+
+    @Column(name = "updated_at", insertable = false, updatable = false)
+    private OffsetDateTime updatedAt;
+
+    // Getters
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public Long getMerchantId() {
+        return merchantId;
+    }
+
+    public BigDecimal getTotalCredits() {
+        return totalCredits;
+    }
+
+    public BigDecimal getTotalPayments() {
+        return totalPayments;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public BigDecimal getOpenCreditAmount() {
+        return openCreditAmount;
+    }
+
+    public LocalDate getOldestUnpaidDueDate() {
+        return oldestUnpaidDueDate;
+    }
+
+    public OffsetDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
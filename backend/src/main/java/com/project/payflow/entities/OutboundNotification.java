@@ -36,7 +36,7 @@ public class OutboundNotification {
     private String message;
 
     @Column(nullable = false, length = 20)
-    private String status = "PENDING"; // PENDING, SENT, FAILED, CANCELLED
+    private String status = "PENDING"; // PENDING, SENDING, SENT, DEAD_LETTER, CANCELLED (FAILED : historique)
 
     @Column(name = "error_message", columnDefinition = "TEXT")
     private String errorMessage;
@@ -44,6 +44,13 @@ public class OutboundNotification {
     @Column(name = "sent_at")
     private OffsetDateTime sentAt;
 
+    // Maintenus par le dispatcher (OutboundNotificationRepositoryImpl)
+    @Column(name = "attempt_count", updatable = false, insertable = false)
+    private Integer attemptCount;
+
+    @Column(name = "next_attempt_at", updatable = false, insertable = false)
+    private OffsetDateTime nextAttemptAt;
+
     @Column(name = "created_at", updatable = false, insertable = false)
     private OffsetDateTime createdAt;
 
@@ -108,6 +115,9 @@ public class OutboundNotification {
         return this;
     }
 
+    public Integer getAttemptCount() { return attemptCount; }
+    public OffsetDateTime getNextAttemptAt() { return nextAttemptAt; }
+
     public OffsetDateTime getCreatedAt() { return createdAt; }
     public OffsetDateTime getUpdatedAt() { return updatedAt; }
 }
\ No newline at end of file
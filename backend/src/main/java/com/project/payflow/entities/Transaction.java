@@ -55,6 +55,10 @@ private BigDecimal interestRate;
 @Column(name = "late_penalty", precision = 18, scale = 2)
 private BigDecimal latePenalty;
 
+    // CREDIT seulement : montant - somme des allocations (null pour un PAYMENT)
+    @Column(name = "remaining_amount", precision = 18, scale = 2)
+    private BigDecimal remainingAmount;
+
     // Getters & setters
 
     public Long getId() {
@@ -158,4 +162,13 @@ private BigDecimal latePenalty;
     this.latePenalty = latePenalty;
     return this;
     }
+
+    public BigDecimal getRemainingAmount() {
+        return remainingAmount;
+    }
+
+    public Transaction setRemainingAmount(BigDecimal remainingAmount) {
+        this.remainingAmount = remainingAmount;
+        return this;
+    }
 }
\ No newline at end of file
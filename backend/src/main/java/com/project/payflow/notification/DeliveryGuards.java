@@ -0,0 +1,106 @@
+package com.project.payflow.notification;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Limiteurs de débit et disjoncteurs des canaux d'envoi, créés à la demande.
+ * Réglages par canal : payflow.delivery.channels.<canal>.rate-per-second / burst
+ * (0 = pas de limite) ; limite optionnelle par merchant et par canal.
+ */
+@Component
+public class DeliveryGuards {
+
+    // Marqueur "pas de limite" (jamais consulté)
+    private static final TokenBucket UNLIMITED = new TokenBucket(1, 1);
+
+    private final Environment environment;
+    private final double merchantRatePerSecond;
+    private final int merchantBurst;
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final Duration maxWait;
+
+    private final Map<String, TokenBucket> channelLimiters = new ConcurrentHashMap<>();
+    // Borné : une entrée par merchant et canal ayant envoyé récemment. Un seau inutilisé depuis
+    // expire-after-access (plus long que burst / débit) est plein : l'oublier ne change rien au quota
+    private final Cache<String, TokenBucket> merchantLimiters;
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    public DeliveryGuards(Environment environment,
+                          @Value("${payflow.delivery.merchant-rate-per-second:0}") double merchantRatePerSecond,
+                          @Value("${payflow.delivery.merchant-burst:5}") int merchantBurst,
+                          @Value("${payflow.delivery.breaker.failure-threshold:5}") int failureThreshold,
+                          @Value("${payflow.delivery.breaker.open-duration:PT30S}") Duration openDuration,
+                          @Value("${payflow.delivery.rate-max-wait:PT1S}") Duration maxWait,
+                          @Value("${payflow.delivery.merchant-limiters.max-size:10000}") long merchantLimitersMaxSize,
+                          @Value("${payflow.delivery.merchant-limiters.expire-after-access:PT10M}")
+                          Duration merchantLimitersExpireAfterAccess) {
+        this.environment = environment;
+        this.merchantRatePerSecond = merchantRatePerSecond;
+        this.merchantBurst = merchantBurst;
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+        this.maxWait = maxWait;
+        this.merchantLimiters = Caffeine.newBuilder()
+                .maximumSize(merchantLimitersMaxSize)
+                .expireAfterAccess(merchantLimitersExpireAfterAccess)
+                .build();
+    }
+
+    public CircuitBreaker breaker(String channel) {
+        return breakers.computeIfAbsent(channel, c -> new CircuitBreaker(failureThreshold, openDuration));
+    }
+
+    /**
+     * Jetons du canal pour au plus max envois, pris avant de réserver les lignes : attend le premier
+     * (au plus rate-max-wait), prend les suivants sans attendre. 0 si le canal est saturé, max s'il
+     * n'est pas limité.
+     */
+    public int acquireChannel(String channel, int max) {
+        TokenBucket bucket = channelLimiters.computeIfAbsent(channel, this::channelBucket);
+        if (bucket == UNLIMITED) {
+            return max;
+        }
+        if (max <= 0 || !bucket.acquire(maxWait)) {
+            return 0;
+        }
+        return 1 + bucket.tryAcquire(max - 1);
+    }
+
+    /** Rend les jetons du canal pris par acquireChannel mais non utilisés (lignes absentes ou reportées). */
+    public void releaseChannel(String channel, int count) {
+        TokenBucket bucket = channelLimiters.computeIfAbsent(channel, this::channelBucket);
+        if (bucket != UNLIMITED && count > 0) {
+            bucket.release(count);
+        }
+    }
+
+    /** Quota par merchant, sans attente : un merchant bavard ne ralentit pas les autres. */
+    public boolean tryAcquireMerchant(String channel, Long merchantId) {
+        if (merchantRatePerSecond <= 0) {
+            return true;
+        }
+        return merchantLimiters
+                .get(channel + ":" + merchantId, k -> new TokenBucket(merchantRatePerSecond, merchantBurst))
+                .tryAcquire();
+    }
+
+    private TokenBucket channelBucket(String channel) {
+        String prefix = "payflow.delivery.channels." + channel.toLowerCase(Locale.ROOT).replace('_', '-') + ".";
+        double rate = environment.getProperty(prefix + "rate-per-second", Double.class, 0d);
+        if (rate <= 0) {
+            return UNLIMITED;
+        }
+        int burst = environment.getProperty(prefix + "burst", Integer.class, (int) Math.ceil(rate));
+        return new TokenBucket(rate, burst);
+    }
+}
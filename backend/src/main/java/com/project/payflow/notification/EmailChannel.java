@@ -0,0 +1,40 @@
+package com.project.payflow.notification;
+
+import com.project.payflow.entities.OutboundNotification;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+@Component
+public class EmailChannel implements NotificationChannel {
+
+    private final StubNotificationProvider provider;
+
+    public EmailChannel(StubNotificationProvider provider) {
+        this.provider = provider;
+    }
+
+    @Override
+    public String getName() {
+        return "EMAIL";
+    }
+
+    @Override
+    public CompletableFuture<Void> send(OutboundNotification n) {
+        // TODO: intégrer un fournisseur email (SendGrid, Postmark, etc.)
+        return provider.send(getName(), toMessage(n));
+    }
+
+    // Les API email transactionnelles acceptent des envois de masse
+    @Override
+    public Map<Long, CompletableFuture<Void>> sendBatch(List<OutboundNotification> notifications) {
+        return provider.sendBatch(getName(), notifications.stream().map(EmailChannel::toMessage).toList());
+    }
+
+    private static StubNotificationProvider.Message toMessage(OutboundNotification n) {
+        String recipient = "customer " + (n.getCustomer() != null ? n.getCustomer().getId() : "null");
+        return new StubNotificationProvider.Message(n.getId(), recipient, n.getTitle(), n.getMessage());
+    }
+}
@@ -0,0 +1,28 @@
+package com.project.payflow.notification;
+
+import com.project.payflow.entities.OutboundNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+
+@Component
+public class InAppChannel implements NotificationChannel {
+
+    private static final Logger log = LoggerFactory.getLogger(InAppChannel.class);
+
+    @Override
+    public String getName() {
+        return "IN_APP";
+    }
+
+    @Override
+    public CompletableFuture<Void> send(OutboundNotification n) {
+        // Les notifications IN_APP sont déjà visibles via la table notifications,
+        // donc ici on se contente de marquer l'outbound comme "traitée".
+        log.debug("[NOTIF] IN_APP for customer {} : {} -> {}",
+                n.getCustomer() != null ? n.getCustomer().getId() : null, n.getTitle(), n.getMessage());
+        return CompletableFuture.completedFuture(null);
+    }
+}
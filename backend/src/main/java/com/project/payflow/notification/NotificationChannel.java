@@ -0,0 +1,41 @@
+package com.project.payflow.notification;
+
+import com.project.payflow.entities.OutboundNotification;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Canal d'envoi des notifications sortantes (SMS, email...). Chaque implémentation est un bean
+ * Spring découvert par NotificationDeliveryService ; getName() correspond à la colonne channel.
+ *
+ * Les envois sont asynchrones : le dispatcher lance tout un lot puis attend les résultats.
+ * Un échec définitif se signale par une PermanentDeliveryException, toute autre erreur
+ * est considérée comme transitoire.
+ */
+public interface NotificationChannel {
+
+    String getName();
+
+    CompletableFuture<Void> send(OutboundNotification notification);
+
+    /**
+     * Envoi groupé, à redéfinir quand le fournisseur a une API de masse.
+     * Par défaut, un envoi par notification, tous en vol en même temps.
+     */
+    default Map<Long, CompletableFuture<Void>> sendBatch(List<OutboundNotification> notifications) {
+        Map<Long, CompletableFuture<Void>> results = new LinkedHashMap<>();
+        for (OutboundNotification n : notifications) {
+            CompletableFuture<Void> result;
+            try {
+                result = send(n);
+            } catch (RuntimeException e) {
+                result = CompletableFuture.failedFuture(e);
+            }
+            results.put(n.getId(), result);
+        }
+        return results;
+    }
+}
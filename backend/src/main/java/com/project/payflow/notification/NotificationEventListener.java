@@ -0,0 +1,114 @@
+package com.project.payflow.notification;
+
+import com.project.payflow.service.NotificationStreamService;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Écoute le canal Postgres payflow_notifications (trigger de db/migration/V7) sur une connexion
+ * dédiée et transmet les merchants concernés à NotificationStreamService.
+ * La connexion est ouverte hors du pool Hikari (mêmes url et identifiants que spring.datasource) :
+ * elle reste ouverte tant que l'application tourne et ne doit pas priver les requêtes d'une connexion.
+ * Reconnexion automatique si la connexion tombe.
+ */
+@Component
+@ConditionalOnProperty(name = "payflow.notifications.stream.enabled", havingValue = "true", matchIfMissing = true)
+public class NotificationEventListener implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationEventListener.class);
+
+    private static final String CHANNEL = "payflow_notifications";
+    private static final int POLL_MILLIS = 5_000;
+    private static final long RECONNECT_MILLIS = 5_000;
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final NotificationStreamService notificationStreamService;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    public NotificationEventListener(@Value("${spring.datasource.url}") String url,
+                                     @Value("${spring.datasource.username:}") String username,
+                                     @Value("${spring.datasource.password:}") String password,
+                                     NotificationStreamService notificationStreamService) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.notificationStreamService = notificationStreamService;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        thread = new Thread(this::listen, "notification-events");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(url, username, password)) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                log.info("Listening to {}", CHANNEL);
+
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_MILLIS);
+                    if (notifications == null || notifications.length == 0) {
+                        continue;
+                    }
+                    Set<Long> merchantIds = new LinkedHashSet<>();
+                    for (PGNotification notification : notifications) {
+                        try {
+                            merchantIds.add(Long.valueOf(notification.getParameter()));
+                        } catch (NumberFormatException e) {
+                            log.warn("Ignoring {} payload '{}'", CHANNEL, notification.getParameter());
+                        }
+                    }
+                    notificationStreamService.publish(merchantIds);
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Lost {} listener connection, retrying in {} ms", CHANNEL, RECONNECT_MILLIS, e);
+                try {
+                    Thread.sleep(RECONNECT_MILLIS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.project.payflow.notification;
+
+/**
+ * Échec d'envoi qui ne se résoudra pas en réessayant (destinataire sans numéro, canal inconnu...) :
+ * la notification passe directement en DEAD_LETTER.
+ */
+public class PermanentDeliveryException extends RuntimeException {
+
+    public PermanentDeliveryException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,57 @@
+package com.project.payflow.notification;
+
+import com.project.payflow.entities.OutboundNotification;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+@Component
+public class SmsChannel implements NotificationChannel {
+
+    private final StubNotificationProvider provider;
+
+    public SmsChannel(StubNotificationProvider provider) {
+        this.provider = provider;
+    }
+
+    @Override
+    public String getName() {
+        return "SMS";
+    }
+
+    @Override
+    public CompletableFuture<Void> send(OutboundNotification n) {
+        // TODO plus tard: intégration Twilio / SMS local
+        return provider.send(getName(), toMessage(n));
+    }
+
+    // Les fournisseurs SMS acceptent des envois de masse : un appel pour tout le lot
+    @Override
+    public Map<Long, CompletableFuture<Void>> sendBatch(List<OutboundNotification> notifications) {
+        Map<Long, CompletableFuture<Void>> results = new LinkedHashMap<>();
+        List<StubNotificationProvider.Message> messages = new ArrayList<>(notifications.size());
+        for (OutboundNotification n : notifications) {
+            try {
+                messages.add(toMessage(n));
+            } catch (PermanentDeliveryException e) {
+                results.put(n.getId(), CompletableFuture.failedFuture(e));
+            }
+        }
+        if (!messages.isEmpty()) {
+            results.putAll(provider.sendBatch(getName(), messages));
+        }
+        return results;
+    }
+
+    private static StubNotificationProvider.Message toMessage(OutboundNotification n) {
+        String phone = n.getCustomer() != null ? n.getCustomer().getPhone() : null;
+        if (phone == null || phone.isBlank()) {
+            throw new PermanentDeliveryException("Pas de numéro de téléphone pour ce client");
+        }
+        return new StubNotificationProvider.Message(n.getId(), phone, n.getTitle(), n.getMessage());
+    }
+}
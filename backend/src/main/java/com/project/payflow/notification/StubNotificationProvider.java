@@ -0,0 +1,67 @@
+package com.project.payflow.notification;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fournisseur d'envoi local (en attendant Twilio, WhatsApp, email...) : journalise le message
+ * après une latence simulée et échoue avec la probabilité error-rate, pour tester hors ligne
+ * les reprises, les limiteurs et les disjoncteurs. La latence est simulée sans bloquer de thread,
+ * comme avec un client HTTP asynchrone.
+ */
+@Component
+public class StubNotificationProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(StubNotificationProvider.class);
+
+    private final Duration latency;
+    private final double errorRate;
+
+    public StubNotificationProvider(@Value("${payflow.delivery.stub.latency:PT0S}") Duration latency,
+                                    @Value("${payflow.delivery.stub.error-rate:0}") double errorRate) {
+        this.latency = latency;
+        this.errorRate = errorRate;
+    }
+
+    public CompletableFuture<Void> send(String channel, Message message) {
+        return CompletableFuture.runAsync(() -> deliver(channel, message), responseExecutor());
+    }
+
+    /** Envoi de masse : un seul aller-retour pour tout le lot, un résultat par message. */
+    public Map<Long, CompletableFuture<Void>> sendBatch(String channel, List<Message> messages) {
+        CompletableFuture<Void> roundTrip = CompletableFuture.runAsync(() -> { }, responseExecutor());
+
+        Map<Long, CompletableFuture<Void>> results = new LinkedHashMap<>();
+        for (Message m : messages) {
+            results.put(m.id(), roundTrip.thenRun(() -> deliver(channel, m)));
+        }
+        return results;
+    }
+
+    private Executor responseExecutor() {
+        return latency.isZero()
+                ? Runnable::run
+                : CompletableFuture.delayedExecutor(latency.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void deliver(String channel, Message m) {
+        if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+            throw new IllegalStateException("Fournisseur " + channel + " indisponible (stub)");
+        }
+        log.info("[NOTIF] {} to {} : {} -> {}", channel, m.recipient(), m.title(), m.body());
+    }
+
+    public record Message(Long id, String recipient, String title, String body) {
+    }
+}
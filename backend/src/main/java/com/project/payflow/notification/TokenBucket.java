@@ -0,0 +1,81 @@
+package com.project.payflow.notification;
+
+import java.time.Duration;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Limiteur à seau de jetons : ratePerSecond jetons par seconde, au plus burst en réserve.
+ * Un jeton peut être réservé à l'avance (solde négatif) : l'appelant attend alors son tour.
+ */
+public class TokenBucket {
+
+    private final double ratePerNano;
+    private final double capacity;
+
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucket(double ratePerSecond, int burst) {
+        this.ratePerNano = ratePerSecond / 1_000_000_000d;
+        this.capacity = Math.max(1, burst);
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /** Prend un jeton s'il y en a un, sans attendre. */
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    /** Prend jusqu'à max jetons disponibles, sans attendre. Retourne le nombre de jetons pris. */
+    public synchronized int tryAcquire(int max) {
+        refill();
+        int taken = (int) Math.min(max, Math.max(0, Math.floor(tokens)));
+        tokens -= taken;
+        return taken;
+    }
+
+    /** Rend des jetons pris mais non utilisés (dans la limite de burst). */
+    public synchronized void release(int count) {
+        refill();
+        tokens = Math.min(capacity, tokens + count);
+    }
+
+    /**
+     * Prend un jeton en attendant au plus maxWait. Retourne false (sans rien consommer)
+     * si le prochain jeton disponible arrive trop tard.
+     */
+    public boolean acquire(Duration maxWait) {
+        long waitNanos;
+        synchronized (this) {
+            refill();
+            if (tokens >= 1) {
+                tokens -= 1;
+                return true;
+            }
+            waitNanos = (long) ((1 - tokens) / ratePerNano);
+            if (waitNanos > maxWait.toNanos()) {
+                return false;
+            }
+            tokens -= 1; // jeton réservé
+        }
+
+        long deadline = System.nanoTime() + waitNanos;
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+        return true;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * ratePerNano);
+        lastRefill = now;
+    }
+}
@@ -0,0 +1,30 @@
+package com.project.payflow.notification;
+
+import com.project.payflow.entities.OutboundNotification;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+
+@Component
+public class WhatsAppChannel implements NotificationChannel {
+
+    private final StubNotificationProvider provider;
+
+    public WhatsAppChannel(StubNotificationProvider provider) {
+        this.provider = provider;
+    }
+
+    @Override
+    public String getName() {
+        return "WHATSAPP";
+    }
+
+    // Pas d'envoi de masse : un message par appel (sendBatch par défaut, tous en vol)
+    @Override
+    public CompletableFuture<Void> send(OutboundNotification n) {
+        // TODO: intégrer API WhatsApp
+        String recipient = "customer " + (n.getCustomer() != null ? n.getCustomer().getId() : "null");
+        return provider.send(getName(),
+                new StubNotificationProvider.Message(n.getId(), recipient, n.getTitle(), n.getMessage()));
+    }
+}
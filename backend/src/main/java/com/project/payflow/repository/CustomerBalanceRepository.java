@@ -0,0 +1,139 @@
+package com.project.payflow.repository;
+
+import com.project.payflow.entities.CustomerBalance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface CustomerBalanceRepository extends JpaRepository<CustomerBalance, Long> {
+
+    List<CustomerBalance> findByMerchantId(Long merchantId);
+
+    // Upsert atomique : pas de lecture/écriture côté Java, donc pas de course entre deux requêtes.
+    // Un nouveau crédit est entièrement ouvert ; dueDate : son échéance (null sinon), least() ignore les null
+    @Modifying
+    @Query(value = """
+        insert into payflow.customer_balances
+            (customer_id, merchant_id, total_credits, total_payments, open_credit_amount, oldest_unpaid_due_date)
+        values (:customerId, :merchantId, :credits, :payments, :credits, :dueDate)
+        on conflict (customer_id) do update
+           set total_credits          = customer_balances.total_credits + excluded.total_credits,
+               total_payments         = customer_balances.total_payments + excluded.total_payments,
+               open_credit_amount     = customer_balances.open_credit_amount + excluded.open_credit_amount,
+               oldest_unpaid_due_date = least(customer_balances.oldest_unpaid_due_date,
+                                              excluded.oldest_unpaid_due_date),
+               updated_at             = now()
+        """, nativeQuery = true)
+    int addAmounts(Long merchantId, Long customerId, BigDecimal credits, BigDecimal payments, LocalDate dueDate);
+
+    // Après une allocation : restant dû total et plus ancienne échéance des crédits encore ouverts
+    // (idx_transactions_open_credits).
+    // flushAutomatically : les remaining_amount modifiés par Hibernate doivent être en base avant le recalcul
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+        update payflow.customer_balances b
+           set open_credit_amount     = o.amount,
+               oldest_unpaid_due_date = o.oldest_due_date,
+               updated_at             = now()
+          from (select coalesce(sum(t.remaining_amount), 0) as amount,
+                       min(t.due_date) as oldest_due_date
+                from payflow.transactions t
+                where t.merchant_id = :merchantId
+                  and t.customer_id = :customerId
+                  and t.type = 'CREDIT'
+                  and t.remaining_amount > 0) o
+         where b.customer_id = :customerId
+        """, nativeQuery = true)
+    int refreshOpenCredits(Long merchantId, Long customerId);
+
+    // Verrou de la ligne de solde d'un client, pris avant ses crédits : même ordre que la création d'une transaction
+    // (addAmounts, puis allocations). Retourne null si le client n'a pas encore de solde.
+    @Query(value = """
+        select customer_id from payflow.customer_balances where customer_id = :customerId for update
+        """, nativeQuery = true)
+    Long lockByCustomerId(Long customerId);
+
+    // Clients en retard (une échéance impayée dépassée et un solde positif), les plus anciens retards d'abord :
+    // [id, name, phone, notes, balance, oldest_unpaid_due_date, overdue_amount].
+    // Le montant en retard (crédits échus non soldés) est plafonné au solde : un paiement non encore
+    // affecté réduit déjà ce que le client doit. c.merchant_id = b.merchant_id : clients lus par l'index du merchant.
+    @Query(value = """
+        select c.id, c.name, c.phone, c.notes, b.balance, b.oldest_unpaid_due_date,
+               least(b.balance, (
+                   select coalesce(sum(t.remaining_amount), 0)
+                   from payflow.transactions t
+                   where t.merchant_id = b.merchant_id
+                     and t.customer_id = b.customer_id
+                     and t.type = 'CREDIT'
+                     and t.remaining_amount > 0
+                     and t.due_date < current_date))
+        from payflow.customer_balances b
+        join payflow.customers c on c.id = b.customer_id
+                                and c.merchant_id = b.merchant_id
+        where b.merchant_id = :merchantId
+          and b.oldest_unpaid_due_date < current_date
+          and b.balance > 0
+        order by b.oldest_unpaid_due_date, c.id
+        """, nativeQuery = true)
+    List<Object[]> findOverdueByMerchant(Long merchantId);
+
+    // Balance âgée par client, en une requête : [customer_id, name, not_due, days_0_30, days_31_60, days_61_90,
+    // over_90, total]. Seuls les crédits ouverts récents (échéance >= asOf - 90 ou sans échéance) sont lus,
+    // dans idx_transactions_open_credits_due ; la tranche 90+ est le reste du total ouvert du client.
+    // Les crédits sans échéance sont comptés comme non échus. La tranche d'un crédit se déduit de comparaisons
+    // de dates et chaque crédit n'est sommé qu'une fois, par client et tranche (voir AgingReportBenchmark).
+    @Query(value = """
+        select b.customer_id, c.name,
+               coalesce(sum(r.amount) filter (where r.bucket = 0), 0),
+               coalesce(sum(r.amount) filter (where r.bucket = 1), 0),
+               coalesce(sum(r.amount) filter (where r.bucket = 2), 0),
+               coalesce(sum(r.amount) filter (where r.bucket = 3), 0),
+               b.open_credit_amount - coalesce(sum(r.amount), 0),
+               b.open_credit_amount
+        from payflow.customer_balances b
+        join payflow.customers c on c.id = b.customer_id and c.merchant_id = b.merchant_id
+        left join (
+            select o.customer_id, o.bucket, sum(o.remaining_amount) as amount
+            from (
+                select t.customer_id, t.remaining_amount,
+                       case when t.due_date > cast(:asOf as date)      then 0
+                            when t.due_date >= cast(:asOf as date) - 30 then 1
+                            when t.due_date >= cast(:asOf as date) - 60 then 2
+                            else 3 end as bucket
+                from payflow.transactions t
+                where t.merchant_id = :merchantId
+                  and t.type = 'CREDIT'
+                  and t.remaining_amount > 0
+                  and t.due_date >= cast(:asOf as date) - 90
+                union all
+                select t.customer_id, t.remaining_amount, 0
+                from payflow.transactions t
+                where t.merchant_id = :merchantId
+                  and t.type = 'CREDIT'
+                  and t.remaining_amount > 0
+                  and t.due_date is null
+            ) o
+            group by o.customer_id, o.bucket
+        ) r on r.customer_id = b.customer_id
+        where b.merchant_id = :merchantId
+          and b.open_credit_amount > 0
+        group by b.customer_id, c.name, b.open_credit_amount
+        order by b.open_credit_amount desc, b.customer_id
+        """, nativeQuery = true)
+    List<Object[]> findAgingByMerchant(Long merchantId, LocalDate asOf);
+
+    // Totaux globaux pour les stats sans période : total dû (soldes > 0), paiements, clients endettés, crédits
+    @Query("""
+        select coalesce(sum(case when b.balance > 0 then b.balance else 0 end), 0),
+               coalesce(sum(b.totalPayments), 0),
+               count(case when b.balance > 0 then 1 end),
+               coalesce(sum(b.totalCredits), 0)
+        from CustomerBalance b
+        where b.merchantId = :merchantId
+        """)
+    List<Object[]> findTotalsByMerchant(Long merchantId);
+}
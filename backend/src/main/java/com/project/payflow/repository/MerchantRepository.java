@@ -1,11 +1,20 @@
 package com.project.payflow.repository;
 import com.project.payflow.entities.*;
 
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 public interface MerchantRepository extends JpaRepository<Merchant,Long> {
     
      Optional<Merchant> findByPhone(String phone);
+
+     @Query("select m.id from Merchant m order by m.id")
+     List<Long> findAllIds();
+
+     // Identifiants d'un shard de merchants : id mod shards = shard
+     @Query("select m.id from Merchant m where mod(m.id, :shards) = :shard order by m.id")
+     List<Long> findIdsByShard(int shards, int shard);
 }
@@ -1,13 +1,42 @@
 package com.project.payflow.repository;
 
+import com.project.payflow.dto.NotificationDto;
 import com.project.payflow.entities.Notification;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
 
-    List<Notification> findByMerchantIdOrderByCreatedAtDesc(Long merchantId);
+    long countByMerchantIdAndReadFalse(Long merchantId);
 
-    List<Notification> findByMerchantIdAndReadFalseOrderByCreatedAtDesc(Long merchantId);
-}
\ No newline at end of file
+    // Page du fil (created_at desc, id desc) : lignes strictement après le curseur
+    @Query("""
+        select new com.project.payflow.dto.NotificationDto(
+            n.id, n.customer.id, n.title, n.message, n.read, n.createdAt
+        )
+        from Notification n
+        where n.merchant.id = :merchantId
+          and (n.createdAt, n.id) < (:cursorAt, :cursorId)
+        order by n.createdAt desc, n.id desc
+    """)
+    List<NotificationDto> findPageByMerchant(Long merchantId,
+                                             OffsetDateTime cursorAt,
+                                             Long cursorId,
+                                             Limit limit);
+
+    // Tout marquer comme lu en un seul UPDATE
+    @Modifying
+    @Query("update Notification n set n.read = true where n.merchant.id = :merchantId and n.read = false")
+    int markAllAsReadByMerchantId(Long merchantId);
+
+    @Query("select coalesce(max(n.id), 0) from Notification n where n.merchant.id = :merchantId")
+    long findMaxIdByMerchantId(Long merchantId);
+
+    // Notifications créées après afterId (flux SSE), les plus anciennes d'abord
+    List<Notification> findByMerchantIdAndIdGreaterThanOrderByIdAsc(Long merchantId, Long afterId, Limit limit);
+}
@@ -3,10 +3,30 @@ package com.project.payflow.repository;
 
 import com.project.payflow.entities.OutboundNotification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
 
-public interface OutboundNotificationRepository extends JpaRepository<OutboundNotification, Long> {
+public interface OutboundNotificationRepository extends JpaRepository<OutboundNotification, Long>,
+        OutboundNotificationRepositoryCustom {
 
-    List<OutboundNotification> findTop100ByStatusOrderByCreatedAtAsc(String status);
-}
\ No newline at end of file
+    // Lignes réservées par claimBatch, avec le client (téléphone) en une requête
+    @Query("""
+        select o
+        from OutboundNotification o
+        left join fetch o.customer
+        where o.id in :ids
+        order by o.id
+    """)
+    List<OutboundNotification> findAllWithCustomerByIdIn(Collection<Long> ids);
+
+    // File d'attente par statut et canal : [status, channel, count]
+    @Query("""
+        select o.status, o.channel, count(o)
+        from OutboundNotification o
+        where o.status in :statuses
+        group by o.status, o.channel
+    """)
+    List<Object[]> countByStatusAndChannel(Collection<String> statuses);
+}
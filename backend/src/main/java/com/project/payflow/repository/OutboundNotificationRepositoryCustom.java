@@ -0,0 +1,34 @@
+package com.project.payflow.repository;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface OutboundNotificationRepositoryCustom {
+
+    // Réserve jusqu'à limit lignes PENDING échues du canal (FOR UPDATE SKIP LOCKED),
+    // les passe en SENDING au nom de owner (propre à cette réservation) et compte la tentative
+    List<Long> claimBatch(String channel, int limit, String owner);
+
+    // Mises à jour de statut groupées en un seul batch JDBC. Chacune ne touche que les lignes encore
+    // réservées par owner (SENDING, claimed_by = owner) : une ligne reprise par releaseStaleClaims puis
+    // réservée par un autre worker n'est pas écrasée
+    void markSent(Collection<Long> ids, String owner);
+
+    // Échec transitoire : PENDING avec un délai min(maxDelay, baseDelay * 2^(tentatives-1)) réduit
+    // d'un jitter aléatoire (jusqu'à 50 %), ou DEAD_LETTER si maxAttempts est atteint
+    void markRetry(Map<Long, String> errorsById, String owner, int maxAttempts, Duration baseDelay, Duration maxDelay);
+
+    // Envoi non tenté (quota ou disjoncteur) : PENDING après delay, sans compter la tentative
+    void markDeferred(Collection<Long> ids, String owner, Duration delay);
+
+    // Échec définitif : DEAD_LETTER sans nouvelle tentative
+    void markDeadLetter(Map<Long, String> errorsById, String owner);
+
+    // Passe en DEAD_LETTER les lignes PENDING d'un canal qui n'est pas dans knownChannels
+    int failUnknownChannels(Collection<String> knownChannels);
+
+    // Remet en PENDING les lignes restées SENDING plus longtemps que olderThan
+    int releaseStaleClaims(Duration olderThan);
+}
@@ -0,0 +1,151 @@
+package com.project.payflow.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+class OutboundNotificationRepositoryImpl implements OutboundNotificationRepositoryCustom {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    OutboundNotificationRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<Long> claimBatch(String channel, int limit, String owner) {
+        // Les lignes déjà verrouillées par un autre worker (ou un autre nœud) sont sautées.
+        // id = any(array(...)) : les lignes du lot sont mises à jour par la clé primaire ; avec "in (...)",
+        // Postgres peut choisir une semi-jointure sur toute la table
+        return jdbcTemplate.queryForList("""
+                update payflow.outbound_notifications o
+                set status = 'SENDING', claimed_at = now(), claimed_by = ?,
+                    attempt_count = o.attempt_count + 1
+                where o.id = any(array(
+                    select id
+                    from payflow.outbound_notifications
+                    where status = 'PENDING'
+                      and channel = ?
+                      and next_attempt_at <= now()
+                    order by next_attempt_at, id
+                    limit ?
+                    for update skip locked
+                ))
+                returning o.id
+                """, Long.class, owner, channel, limit);
+    }
+
+    @Override
+    public void markSent(Collection<Long> ids, String owner) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("""
+                update payflow.outbound_notifications
+                set status = 'SENT', sent_at = now(), error_message = null, claimed_at = null, claimed_by = null
+                where id = ? and status = 'SENDING' and claimed_by = ?
+                """,
+                ids,
+                ids.size(),
+                (ps, id) -> {
+                    ps.setLong(1, id);
+                    ps.setString(2, owner);
+                });
+    }
+
+    @Override
+    public void markRetry(Map<Long, String> errorsById,
+                          String owner,
+                          int maxAttempts,
+                          Duration baseDelay,
+                          Duration maxDelay) {
+        if (errorsById.isEmpty()) {
+            return;
+        }
+        double baseSeconds = (double) baseDelay.toMillis() / 1000;
+        double maxSeconds = (double) maxDelay.toMillis() / 1000;
+        jdbcTemplate.batchUpdate("""
+                update payflow.outbound_notifications
+                set status = case when attempt_count >= ? then 'DEAD_LETTER' else 'PENDING' end,
+                    next_attempt_at = now() + make_interval(secs =>
+                        least(?, ? * power(2, greatest(attempt_count - 1, 0))) * (0.5 + random() / 2)),
+                    error_message = ?, claimed_at = null, claimed_by = null
+                where id = ? and status = 'SENDING' and claimed_by = ?
+                """,
+                new ArrayList<>(errorsById.entrySet()),
+                errorsById.size(),
+                (ps, e) -> {
+                    ps.setInt(1, maxAttempts);
+                    ps.setDouble(2, maxSeconds);
+                    ps.setDouble(3, baseSeconds);
+                    ps.setString(4, e.getValue());
+                    ps.setLong(5, e.getKey());
+                    ps.setString(6, owner);
+                });
+    }
+
+    @Override
+    public void markDeferred(Collection<Long> ids, String owner, Duration delay) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        double delaySeconds = (double) delay.toMillis() / 1000;
+        jdbcTemplate.batchUpdate("""
+                update payflow.outbound_notifications
+                set status = 'PENDING', attempt_count = attempt_count - 1,
+                    next_attempt_at = now() + make_interval(secs => ?),
+                    claimed_at = null, claimed_by = null
+                where id = ? and status = 'SENDING' and claimed_by = ?
+                """,
+                ids,
+                ids.size(),
+                (ps, id) -> {
+                    ps.setDouble(1, delaySeconds);
+                    ps.setLong(2, id);
+                    ps.setString(3, owner);
+                });
+    }
+
+    @Override
+    public void markDeadLetter(Map<Long, String> errorsById, String owner) {
+        if (errorsById.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("""
+                update payflow.outbound_notifications
+                set status = 'DEAD_LETTER', error_message = ?, claimed_at = null, claimed_by = null
+                where id = ? and status = 'SENDING' and claimed_by = ?
+                """,
+                new ArrayList<>(errorsById.entrySet()),
+                errorsById.size(),
+                (ps, e) -> {
+                    ps.setString(1, e.getValue());
+                    ps.setLong(2, e.getKey());
+                    ps.setString(3, owner);
+                });
+    }
+
+    @Override
+    public int failUnknownChannels(Collection<String> knownChannels) {
+        return jdbcTemplate.update("""
+                update payflow.outbound_notifications
+                set status = 'DEAD_LETTER', error_message = 'Canal inconnu : ' || channel
+                where status = 'PENDING'
+                  and channel <> all (?::varchar[])
+                """, (Object) knownChannels.toArray(String[]::new));
+    }
+
+    @Override
+    public int releaseStaleClaims(Duration olderThan) {
+        return jdbcTemplate.update("""
+                update payflow.outbound_notifications
+                set status = 'PENDING', claimed_at = null, claimed_by = null
+                where status = 'SENDING'
+                  and claimed_at < now() - make_interval(secs => ?)
+                """, (double) olderThan.toMillis() / 1000);
+    }
+}
@@ -6,7 +6,8 @@ import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.List;
 
-public interface PaymentAllocationRepository extends JpaRepository<PaymentAllocation, Long> {
+public interface PaymentAllocationRepository extends JpaRepository<PaymentAllocation, Long>,
+        PaymentAllocationRepositoryCustom {
 
     List<PaymentAllocation> findByCredit(Transaction credit);
 
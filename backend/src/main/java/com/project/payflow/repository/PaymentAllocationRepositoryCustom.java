@@ -0,0 +1,11 @@
+package com.project.payflow.repository;
+
+import com.project.payflow.entities.PaymentAllocation;
+
+import java.util.List;
+
+public interface PaymentAllocationRepositoryCustom {
+
+    // Insertion JDBC batchée (un seul aller-retour avec reWriteBatchedInserts)
+    void insertAll(List<PaymentAllocation> allocations);
+}
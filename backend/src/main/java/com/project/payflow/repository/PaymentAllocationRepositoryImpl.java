@@ -0,0 +1,36 @@
+package com.project.payflow.repository;
+
+import com.project.payflow.entities.PaymentAllocation;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+class PaymentAllocationRepositoryImpl implements PaymentAllocationRepositoryCustom {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    PaymentAllocationRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insertAll(List<PaymentAllocation> allocations) {
+        if (allocations.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("""
+                insert into payflow.payment_allocations
+                    (merchant_id, customer_id, payment_id, credit_id, allocated_amount)
+                values (?, ?, ?, ?, ?)
+                """,
+                allocations,
+                allocations.size(),
+                (ps, a) -> {
+                    ps.setLong(1, a.getMerchant().getId());
+                    ps.setLong(2, a.getCustomer().getId());
+                    ps.setLong(3, a.getPayment().getId());
+                    ps.setLong(4, a.getCredit().getId());
+                    ps.setBigDecimal(5, a.getAllocatedAmount());
+                });
+    }
+}
@@ -2,15 +2,66 @@ package com.project.payflow.repository;
 
 import com.project.payflow.entities.PaymentReminder;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
 import java.time.LocalDate;
 
 public interface PaymentReminderRepository extends JpaRepository<PaymentReminder, Long> {
 
-    boolean existsByMerchantIdAndCustomerIdAndDueDateAndReminderLevel(
-            Long merchantId,
-            Long customerId,
-            LocalDate dueDate,
-            Integer reminderLevel
-    );
-}
\ No newline at end of file
+    /**
+     * Génère en une requête les rappels d'un niveau pour tous les crédits arrivant à dueDate :
+     * un rappel par client encore endetté (premier crédit par id), dédoublonné par la
+     * contrainte unique de payment_reminders, puis la notification in-app, les préférences
+     * par défaut si absentes et le message sortant (SMS si autorisé, sinon IN_APP).
+     * Retourne le nombre de rappels créés.
+     */
+    @Modifying
+    @Query(value = """
+        with candidates as (
+            select distinct on (t.customer_id)
+                   t.customer_id, t.amount, t.due_date, c.name
+            from payflow.transactions t
+            join payflow.customers c on c.id = t.customer_id
+            join payflow.customer_balances b on b.customer_id = t.customer_id
+            where t.merchant_id = :merchantId
+              and t.type = 'CREDIT'
+              and t.due_date = :dueDate
+              and b.balance > 0
+            order by t.customer_id, t.id
+        ), reminders as (
+            insert into payflow.payment_reminders (merchant_id, customer_id, due_date, reminder_level, reminder_type)
+            select :merchantId, customer_id, due_date, :level, :reminderType
+            from candidates
+            on conflict (merchant_id, customer_id, due_date, reminder_level) do nothing
+            returning customer_id
+        ), default_prefs as (
+            insert into payflow.notification_preferences
+                (merchant_id, customer_id, preferred_channel, allow_in_app, allow_sms, allow_whatsapp, allow_email)
+            select :merchantId, customer_id, 'IN_APP', true, false, false, false
+            from reminders
+            on conflict (merchant_id, customer_id) do nothing
+        ), notifs as (
+            insert into payflow.notifications (merchant_id, customer_id, title, message)
+            select :merchantId, c.customer_id, :title,
+                   'Le crédit de ' || c.amount || ' pour le client ' || c.name
+                       || :phrase || to_char(c.due_date, 'YYYY-MM-DD') || '.'
+            from candidates c
+            join reminders r on r.customer_id = c.customer_id
+            returning customer_id, title, message
+        )
+        insert into payflow.outbound_notifications (merchant_id, customer_id, channel, type, title, message, status)
+        select :merchantId, n.customer_id,
+               case when coalesce(np.allow_sms, false) then 'SMS' else 'IN_APP' end,
+               'REMINDER', n.title, n.message, 'PENDING'
+        from notifs n
+        left join payflow.notification_preferences np
+               on np.merchant_id = :merchantId and np.customer_id = n.customer_id
+        """, nativeQuery = true)
+    int insertRemindersForDueDate(Long merchantId,
+                                  LocalDate dueDate,
+                                  Integer level,
+                                  String reminderType,
+                                  String title,
+                                  String phrase);
+}
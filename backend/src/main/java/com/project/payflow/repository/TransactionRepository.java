@@ -1,37 +1,31 @@
 // src/main/java/com/project/payflow/repository/TransactionRepository.java
 package com.project.payflow.repository;
 
+import com.project.payflow.dto.CreditWithRemainingDto;
+import com.project.payflow.dto.TransactionDto;
 import com.project.payflow.entities.Transaction;
+import org.springframework.data.domain.Limit;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.time.LocalDate;
 
-public interface TransactionRepository extends JpaRepository<Transaction, Long> {
-
-    List<Transaction> findByMerchantId(Long merchantId);
+public interface TransactionRepository extends JpaRepository<Transaction, Long>,
+        TransactionRepositoryCustom {
 
     List<Transaction> findByCustomerId(Long customerId);
 
-    List<Transaction> findByMerchantIdAndCustomerId(Long merchantId, Long customerId);
+    // Chargement groupé et verrouillé des crédits visés par un paiement
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select t from Transaction t where t.id in :ids order by t.id")
+    List<Transaction> findAllByIdForUpdate(Collection<Long> ids);
 
-    // Somme des montants par client pour un merchant donné (JPQL)
-    @Query("""
-        select t.customer.id,
-               sum(
-                 case
-                   when t.type = com.project.payflow.entities.TransactionType.CREDIT then t.amount
-                   when t.type = com.project.payflow.entities.TransactionType.PAYMENT then -t.amount
-                   else 0
-                 end
-               )
-        from Transaction t
-        where t.merchant.id = :merchantId
-        group by t.customer.id
-        """)
-    List<Object[]> findClientBalancesByMerchant(Long merchantId);
+    List<Transaction> findByMerchantIdAndCustomerId(Long merchantId, Long customerId);
 
     // Totaux globaux pour les stats (JPQL)
    // src/main/java/com/project/payflow/repository/TransactionRepository.java
@@ -45,58 +39,81 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     """)
 java.util.List<Object[]> findTotalsByMerchant(Long merchantId);
 
-List<Transaction> findByMerchantIdAndTransactionDateGreaterThanEqual(Long merchantId, LocalDate from);
-
-// Période de fin seulement
-List<Transaction> findByMerchantIdAndTransactionDateLessThanEqual(Long merchantId, LocalDate to);
-
-// Période complète
-List<Transaction> findByMerchantIdAndTransactionDateBetween(Long merchantId, LocalDate from, LocalDate to);
+// Stats d'une période en une seule requête : crédits, paiements, clients endettés, total dû
+@Query(value = """
+    select coalesce(sum(s.credits), 0),
+           coalesce(sum(s.payments), 0),
+           count(*) filter (where s.balance > 0),
+           coalesce(sum(s.balance) filter (where s.balance > 0), 0)
+    from (
+        select t.customer_id,
+               sum(case when t.type = 'CREDIT' then t.amount else 0 end) as credits,
+               sum(case when t.type = 'PAYMENT' then t.amount else 0 end) as payments,
+               sum(case when t.type = 'CREDIT' then t.amount else -t.amount end) as balance
+        from payflow.transactions t
+        where t.merchant_id = :merchantId
+          and t.transaction_date between :fromDate and :toDate
+        group by t.customer_id
+    ) s
+    """, nativeQuery = true)
+List<Object[]> aggregateStatsByMerchant(Long merchantId, LocalDate fromDate, LocalDate toDate);
+
+// Page keyset sur (transaction_date desc, id desc), projetée directement en DTO.
+// La page suivante commence strictement après (cursorDate, cursorId).
 @Query("""
-select distinct c.id
-from Customer c
-join Transaction t on t.customer = c
-where c.merchant.id = :merchantId
-  and t.type = com.project.payflow.entities.TransactionType.CREDIT
-  and t.dueDate is not null
-  and t.dueDate < CURRENT_DATE
-  and (
-    select coalesce(sum(tc.amount), 0)
-    from Transaction tc
-    where tc.customer = c
-      and tc.merchant.id = :merchantId
-      and tc.type = com.project.payflow.entities.TransactionType.CREDIT
-  )
-  -
-  (
-    select coalesce(sum(tp.amount), 0)
-    from Transaction tp
-    where tp.customer = c
-      and tp.merchant.id = :merchantId
-      and tp.type = com.project.payflow.entities.TransactionType.PAYMENT
-  ) > 0
-""")
-List<Long> findOverdueCustomerIds(Long merchantId);
-
-@Query("""
-    select t
+    select new com.project.payflow.dto.TransactionDto(
+               t.id, t.customer.id, t.type, t.amount, t.description,
+               t.transactionDate, t.dueDate, t.paymentMethod, t.interestRate, t.latePenalty)
     from Transaction t
     where t.merchant.id = :merchantId
-      and t.type = com.project.payflow.entities.TransactionType.CREDIT
-      and t.dueDate = :dueDate
-""")
-java.util.List<Transaction> findCreditsByMerchantAndDueDate(Long merchantId, java.time.LocalDate dueDate);
+      and t.transactionDate >= :fromDate
+      and (t.transactionDate, t.id) < (:cursorDate, :cursorId)
+    order by t.transactionDate desc, t.id desc
+    """)
+List<TransactionDto> findPageByMerchant(Long merchantId,
+                                        LocalDate fromDate,
+                                        LocalDate cursorDate,
+                                        Long cursorId,
+                                        Limit limit);
 
+// Crédits encore ouverts d'un client, avec leur restant dû, en une seule requête
 @Query("""
-    select t
+    select new com.project.payflow.dto.CreditWithRemainingDto(
+               t.id, t.customer.id, t.amount, t.remainingAmount,
+               t.description, t.transactionDate, t.dueDate)
     from Transaction t
     where t.merchant.id = :merchantId
       and t.customer.id = :customerId
       and t.type = com.project.payflow.entities.TransactionType.CREDIT
-      and t.amount > 0
+      and t.remainingAmount > 0
     order by t.dueDate nulls last, t.transactionDate, t.id
 """)
-List<Transaction> findCreditsByMerchantAndCustomer(Long merchantId, Long customerId);
-
-
-}
\ No newline at end of file
+List<CreditWithRemainingDto> findOpenCreditsByMerchantAndCustomer(Long merchantId, Long customerId);
+
+// Paiements dont une partie n'est affectée à aucun crédit : id, client, montant non affecté
+@Query(value = """
+    select p.id, p.customer_id, p.amount - coalesce(sum(pa.allocated_amount), 0)
+    from payflow.transactions p
+    left join payflow.payment_allocations pa on pa.payment_id = p.id
+    where p.merchant_id = :merchantId
+      and p.type = 'PAYMENT'
+    group by p.id
+    having p.amount - coalesce(sum(pa.allocated_amount), 0) > 0
+    order by p.transaction_date, p.id
+    """, nativeQuery = true)
+List<Object[]> findUnallocatedPayments(Long merchantId);
+
+// Même chose pour un seul client : id, montant non affecté
+@Query(value = """
+    select p.id, p.amount - coalesce(sum(pa.allocated_amount), 0)
+    from payflow.transactions p
+    left join payflow.payment_allocations pa on pa.payment_id = p.id
+    where p.merchant_id = :merchantId
+      and p.customer_id = :customerId
+      and p.type = 'PAYMENT'
+    group by p.id
+    having p.amount - coalesce(sum(pa.allocated_amount), 0) > 0
+    order by p.transaction_date, p.id
+    """, nativeQuery = true)
+List<Object[]> findUnallocatedPaymentsByCustomer(Long merchantId, Long customerId);
+}
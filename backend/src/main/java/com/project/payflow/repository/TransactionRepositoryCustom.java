@@ -0,0 +1,19 @@
+package com.project.payflow.repository;
+
+import com.project.payflow.service.AllocationStrategy;
+
+import java.math.BigDecimal;
+
+public interface TransactionRepositoryCustom {
+
+    /**
+     * Répartit {@code amount} du paiement sur les crédits ouverts du client, dans l'ordre
+     * de la stratégie, en une seule requête (verrouillage, INSERT des allocations et
+     * mise à jour de remaining_amount). Retourne le montant effectivement affecté.
+     */
+    BigDecimal allocateToOpenCredits(Long merchantId,
+                                     Long customerId,
+                                     Long paymentId,
+                                     BigDecimal amount,
+                                     AllocationStrategy strategy);
+}
@@ -0,0 +1,64 @@
+package com.project.payflow.repository;
+
+import com.project.payflow.service.AllocationStrategy;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+class TransactionRepositoryImpl implements TransactionRepositoryCustom {
+
+    // L'ORDER BY vient de l'enum AllocationStrategy, jamais d'une saisie utilisateur
+    private static final String ALLOCATE_SQL = """
+            with locked as (
+                select id, remaining_amount, due_date, transaction_date, late_penalty
+                from payflow.transactions
+                where merchant_id = ?
+                  and customer_id = ?
+                  and type = 'CREDIT'
+                  and remaining_amount > 0
+                order by %1$s
+                for update
+            ), ranked as (
+                select id, remaining_amount,
+                       sum(remaining_amount) over (order by %1$s rows between unbounded preceding and current row)
+                           - remaining_amount as allocated_before
+                from locked
+            ), alloc as (
+                select id, least(remaining_amount, ? - allocated_before) as amount
+                from ranked
+                where allocated_before < ?
+            ), ins as (
+                insert into payflow.payment_allocations
+                    (merchant_id, customer_id, payment_id, credit_id, allocated_amount)
+                select ?, ?, ?, id, amount from alloc
+            )
+            update payflow.transactions t
+            set remaining_amount = t.remaining_amount - a.amount
+            from alloc a
+            where t.id = a.id
+            returning a.amount
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    TransactionRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public BigDecimal allocateToOpenCredits(Long merchantId,
+                                            Long customerId,
+                                            Long paymentId,
+                                            BigDecimal amount,
+                                            AllocationStrategy strategy) {
+        List<BigDecimal> allocated = jdbcTemplate.queryForList(
+                ALLOCATE_SQL.formatted(strategy.getOrderBy()),
+                BigDecimal.class,
+                merchantId, customerId,
+                amount, amount,
+                merchantId, customerId, paymentId);
+
+        return allocated.stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
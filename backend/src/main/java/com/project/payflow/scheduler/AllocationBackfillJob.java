@@ -0,0 +1,46 @@
+package com.project.payflow.scheduler;
+
+import com.project.payflow.repository.MerchantRepository;
+import com.project.payflow.service.PaymentAllocationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reprise ponctuelle des paiements historiques non affectés, pour tous les merchants.
+ * Activée par payflow.allocation.backfill-on-startup=true ; chaque client est traité
+ * dans sa propre transaction, une erreur sur un merchant n'interrompt pas les suivants.
+ */
+@Component
+@ConditionalOnProperty(name = "payflow.allocation.backfill-on-startup", havingValue = "true")
+public class AllocationBackfillJob implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(AllocationBackfillJob.class);
+
+    private final MerchantRepository merchantRepository;
+    private final PaymentAllocationService paymentAllocationService;
+
+    public AllocationBackfillJob(MerchantRepository merchantRepository,
+                                 PaymentAllocationService paymentAllocationService) {
+        this.merchantRepository = merchantRepository;
+        this.paymentAllocationService = paymentAllocationService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int merchants = 0;
+        int payments = 0;
+        for (Long merchantId : merchantRepository.findAllIds()) {
+            try {
+                payments += paymentAllocationService.backfillUnallocatedPayments(merchantId, null);
+                merchants++;
+            } catch (RuntimeException e) {
+                log.error("Allocation backfill failed for merchant {}", merchantId, e);
+            }
+        }
+        log.info("Allocation backfill done: {} merchants, {} payments allocated", merchants, payments);
+    }
+}
@@ -14,9 +14,10 @@ public class NotificationDeliveryScheduler {
         this.deliveryService = deliveryService;
     }
 
-    // Toutes les minutes (pour test)
-    @Scheduled(cron = "0 15 * * * *")
+    // En continu : les workers par canal vident la file, ce tick ne fait que les relancer.
+    // Plusieurs nœuds peuvent tourner en même temps (réservation SKIP LOCKED, pas de bail).
+    @Scheduled(fixedDelayString = "${payflow.delivery.poll-interval:PT2S}")
     public void processNotifications() {
-        deliveryService.processPendingBatch();
+        deliveryService.dispatchPending();
     }
-}
\ No newline at end of file
+}
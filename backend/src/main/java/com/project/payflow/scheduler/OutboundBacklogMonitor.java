@@ -0,0 +1,57 @@
+package com.project.payflow.scheduler;
+
+import com.project.payflow.repository.OutboundNotificationRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Jauge payflow.outbound.backlog{status, channel} : taille de la file des notifications sortantes.
+ * Le comptage est fait périodiquement et non à chaque scrape, pour qu'un scrape ne coûte
+ * jamais une requête en base.
+ */
+@Component
+public class OutboundBacklogMonitor {
+
+    // FAILED : statut historique, conservé pour voir les anciennes lignes
+    private static final List<String> STATUSES = List.of("PENDING", "SENDING", "FAILED", "DEAD_LETTER");
+
+    private final OutboundNotificationRepository outboundRepository;
+    private final MultiGauge backlog;
+    private final Set<Tags> seen = new HashSet<>(); // modifié par le seul thread du scheduler
+
+    public OutboundBacklogMonitor(OutboundNotificationRepository outboundRepository, MeterRegistry registry) {
+        this.outboundRepository = outboundRepository;
+        this.backlog = MultiGauge.builder("payflow.outbound.backlog")
+                .description("Notifications sortantes par statut et canal")
+                .baseUnit("notifications")
+                .register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${payflow.metrics.backlog-refresh:PT15S}")
+    public void refresh() {
+        // Un couple statut/canal déjà vu et vidé depuis est publié à 0 plutôt que de disparaître
+        Map<Tags, Long> counts = new HashMap<>();
+        for (Tags tags : seen) {
+            counts.put(tags, 0L);
+        }
+        for (Object[] row : outboundRepository.countByStatusAndChannel(STATUSES)) {
+            Tags tags = Tags.of("status", (String) row[0], "channel", (String) row[1]);
+            counts.put(tags, ((Number) row[2]).longValue());
+            seen.add(tags);
+        }
+
+        List<MultiGauge.Row<?>> rows = new ArrayList<>(counts.size());
+        counts.forEach((tags, count) -> rows.add(MultiGauge.Row.of(tags, count)));
+        backlog.register(rows, true);
+    }
+}
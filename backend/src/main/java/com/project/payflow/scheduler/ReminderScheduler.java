@@ -1,31 +1,191 @@
 package com.project.payflow.scheduler;
 
-import com.project.payflow.entities.Merchant;
 import com.project.payflow.repository.MerchantRepository;
+import com.project.payflow.service.LeaseService;
 import com.project.payflow.service.PaymentReminderService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Génération quotidienne des rappels. Les merchants sont répartis en shards (id mod shards)
+ * traités en parallèle sur un exécuteur borné ; chaque merchant a sa propre transaction,
+ * une erreur sur l'un n'annule ni ne bloque les autres.
+ *
+ * Chaque shard du jour est réservé par un bail (scheduler_leases) : avec plusieurs instances,
+ * un shard n'est traité que par un nœud. Un shard terminé reste réservé jusqu'au lendemain ;
+ * un shard en échec (ou dont le nœud est tombé) est repris au déclenchement suivant.
+ */
 @Component
 public class ReminderScheduler {
 
+    private static final Logger log = LoggerFactory.getLogger(ReminderScheduler.class);
+
     private final MerchantRepository merchantRepository;
     private final PaymentReminderService paymentReminderService;
+    private final LeaseService leaseService;
+    private final SimpleAsyncTaskExecutor executor;
+    private final int shards;
+    private final int concurrency;
+    private final Duration leaseTtl;
+    private final MeterRegistry meterRegistry;
+
+    private volatile RunReport lastRun;
 
     public ReminderScheduler(MerchantRepository merchantRepository,
-                             PaymentReminderService paymentReminderService) {
+                             PaymentReminderService paymentReminderService,
+                             LeaseService leaseService,
+                             MeterRegistry meterRegistry,
+                             @Value("${payflow.reminders.shards:16}") int shards,
+                             @Value("${payflow.reminders.concurrency:8}") int concurrency,
+                             @Value("${payflow.reminders.virtual-threads:false}") boolean virtualThreads,
+                             @Value("${payflow.reminders.lease-ttl:PT1H}") Duration leaseTtl) {
         this.merchantRepository = merchantRepository;
         this.paymentReminderService = paymentReminderService;
+        this.leaseService = leaseService;
+        this.meterRegistry = meterRegistry;
+        this.shards = Math.max(1, shards);
+        this.concurrency = Math.max(1, concurrency);
+        this.leaseTtl = leaseTtl;
+
+        // Au plus "concurrency" shards en vol : borne aussi l'usage du pool de connexions
+        this.executor = new SimpleAsyncTaskExecutor("reminders-");
+        this.executor.setVirtualThreads(virtualThreads);
+        this.executor.setConcurrencyLimit(this.concurrency);
     }
 
-    // Tous les jours à 08:00
-   @Scheduled(cron = "0 0 8 * * *")
+    // Tous les jours à 08:00 par défaut ; des déclenchements supplémentaires servent de rattrapage
+    @Scheduled(cron = "${payflow.reminders.cron:0 0 8 * * *}")
     public void generateDailyReminders() {
-        List<Merchant> merchants = merchantRepository.findAll();
-        for (Merchant m : merchants) {
-            paymentReminderService.generateDailyRemindersForMerchant(m);
+        LocalDate today = LocalDate.now();
+        long start = System.currentTimeMillis();
+
+        // Les baux journaliers des jours passés ne servent plus
+        leaseService.purgeExpiredBefore(OffsetDateTime.now().minusDays(7));
+
+        AtomicInteger merchants = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        AtomicInteger reminders = new AtomicInteger();
+        AtomicInteger shardsDone = new AtomicInteger();
+        AtomicInteger shardsSkipped = new AtomicInteger();
+
+        List<CompletableFuture<Void>> tasks = new ArrayList<>(shards);
+        for (int shard = 0; shard < shards; shard++) {
+            int current = shard;
+            tasks.add(CompletableFuture.runAsync(() -> {
+                String lease = "reminders:" + today + ":" + current;
+                if (!leaseService.tryAcquire(lease, leaseTtl)) {
+                    shardsSkipped.incrementAndGet();
+                    return; // déjà traité aujourd'hui ou en cours sur un autre nœud
+                }
+                boolean ok = false;
+                try {
+                    ok = runShard(current, lease, today, merchants, failures, reminders);
+                } finally {
+                    if (ok) {
+                        leaseService.holdUntil(lease, startOfNextDay(today));
+                    } else {
+                        leaseService.release(lease);
+                    }
+                }
+                log.info("Reminder shard {}/{} done ({} merchants so far, {} failed)",
+                        shardsDone.incrementAndGet(), shards, merchants.get(), failures.get());
+            }, executor));
+        }
+        CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).join();
+
+        lastRun = new RunReport(today, shards, shardsSkipped.get(), merchants.get(), failures.get(),
+                reminders.get(), System.currentTimeMillis() - start);
+        log.info("Daily reminders done: {}", lastRun);
+        record(lastRun);
+    }
+
+    // Le bilan du run exporté en métriques : payflow.reminders.run (durée), .merchants et .shards
+    private void record(RunReport report) {
+        meterRegistry.timer("payflow.reminders.run").record(report.durationMs(), TimeUnit.MILLISECONDS);
+        meterRegistry.counter("payflow.reminders.merchants", "outcome", "ok")
+                .increment(Math.max(0, report.merchants() - report.failedMerchants())); // un shard illisible compte comme un échec
+        meterRegistry.counter("payflow.reminders.merchants", "outcome", "failed")
+                .increment(report.failedMerchants());
+        meterRegistry.counter("payflow.reminders.shards", "outcome", "processed")
+                .increment(report.shards() - report.shardsSkipped());
+        meterRegistry.counter("payflow.reminders.shards", "outcome", "skipped")
+                .increment(report.shardsSkipped());
+    }
+
+    /** Retourne true si tous les merchants du shard ont été traités sans erreur. */
+    private boolean runShard(int shard,
+                             String lease,
+                             LocalDate today,
+                             AtomicInteger merchants,
+                             AtomicInteger failures,
+                             AtomicInteger reminders) {
+        List<Long> merchantIds;
+        try {
+            merchantIds = merchantRepository.findIdsByShard(shards, shard);
+        } catch (RuntimeException e) {
+            log.error("Cannot load merchants of reminder shard {}", shard, e);
+            failures.incrementAndGet();
+            return false;
+        }
+
+        long renewEvery = Math.max(1, leaseTtl.toMillis() / 3);
+        long nextRenewal = System.currentTimeMillis() + renewEvery;
+        boolean ok = true;
+        for (Long merchantId : merchantIds) {
+            if (System.currentTimeMillis() >= nextRenewal) {
+                if (!leaseService.renew(lease, leaseTtl)) {
+                    log.warn("Lost lease {}, leaving the rest of reminder shard {} to its new owner", lease, shard);
+                    return false;
+                }
+                nextRenewal = System.currentTimeMillis() + renewEvery;
+            }
+            try {
+                reminders.addAndGet(paymentReminderService.generateDailyRemindersForMerchant(merchantId, today));
+            } catch (RuntimeException e) {
+                ok = false;
+                failures.incrementAndGet();
+                log.error("Reminder generation failed for merchant {}", merchantId, e);
+            }
+            merchants.incrementAndGet();
         }
+        return ok;
+    }
+
+    private static OffsetDateTime startOfNextDay(LocalDate day) {
+        return day.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toOffsetDateTime();
+    }
+
+    /** Nombre maximal de shards traités en même temps (chacun tient une connexion pendant un merchant). */
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public RunReport getLastRun() {
+        return lastRun;
+    }
+
+    /** Bilan du dernier run : shards déjà réservés (ailleurs ou plus tôt), merchants traités, en échec, rappels créés et durée. */
+    public record RunReport(LocalDate runDate,
+                            int shards,
+                            int shardsSkipped,
+                            int merchants,
+                            int failedMerchants,
+                            int remindersCreated,
+                            long durationMs) {
     }
-}
\ No newline at end of file
+}
@@ -1,8 +1,12 @@
 // src/main/java/com/project/payflow/security/JwtService.java
 package com.project.payflow.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.security.Key;
@@ -16,6 +20,42 @@ public class JwtService {
 
     private final Key key = Keys.hmacShaKeyFor(SECRET.getBytes());
 
+    // Le parser est immuable et thread-safe : construit une seule fois
+    private final JwtParser parser = Jwts.parserBuilder()
+            .setSigningKey(key)
+            .build();
+
+    // Jetons déjà vérifiés (signature + exp) : une entrée expire avec le jeton lui-même.
+    // La clé est le jeton complet : pas de collision possible, un jeton modifié n'est jamais trouvé.
+    private final Cache<String, Claims> verifiedTokens;
+
+    public JwtService(@Value("${payflow.auth.token-cache.max-size:10000}") long tokenCacheMaxSize) {
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(tokenCacheMaxSize)
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String token, Claims claims, long currentTime) {
+                        Date expiration = claims.getExpiration();
+                        if (expiration == null) {
+                            return 0; // sans exp, pas de cache : vérifié à chaque fois
+                        }
+                        long remainingMs = expiration.getTime() - System.currentTimeMillis();
+                        return Math.max(0, remainingMs) * 1_000_000L;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
     public String generateToken(Long merchantId, String phone) {
         Date now = new Date();
         Date expiry = new Date(now.getTime() + EXPIRATION_MS);
@@ -30,14 +70,21 @@ public class JwtService {
     }
 
     public Jws<Claims> parseToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token);
+        return parser.parseClaimsJws(token);
+    }
+
+    /** Claims d'un jeton valide ; la signature n'est vérifiée qu'à la première présentation du jeton. */
+    public Claims verifiedClaims(String token) {
+        Claims claims = verifiedTokens.getIfPresent(token);
+        if (claims == null) {
+            claims = parseToken(token).getBody(); // lève une JwtException si invalide ou expiré
+            verifiedTokens.put(token, claims);
+        }
+        return claims;
     }
 
     public Long extractMerchantId(String token) {
-        String sub = parseToken(token).getBody().getSubject();
+        String sub = verifiedClaims(token).getSubject();
         return Long.valueOf(sub);
     }
-}
\ No newline at end of file
+}
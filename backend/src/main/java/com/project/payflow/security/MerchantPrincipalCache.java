@@ -0,0 +1,41 @@
+package com.project.payflow.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.project.payflow.entities.Merchant;
+import com.project.payflow.repository.MerchantRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Cache borné (taille + TTL) des merchants authentifiés, par id : évite un findById à chaque requête.
+ * À invalider dès qu'un merchant est modifié (mot de passe...). Les instances mises en cache
+ * sont partagées entre requêtes : ne pas les modifier, recharger le merchant pour l'écrire.
+ */
+@Component
+public class MerchantPrincipalCache {
+
+    private final MerchantRepository merchantRepository;
+    private final Cache<Long, Merchant> cache;
+
+    public MerchantPrincipalCache(MerchantRepository merchantRepository,
+                                  @Value("${payflow.auth.principal-cache.max-size:10000}") long maxSize,
+                                  @Value("${payflow.auth.principal-cache.ttl:PT5M}") Duration ttl) {
+        this.merchantRepository = merchantRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /** Merchant de l'id donné, ou null s'il n'existe pas (les absences ne sont pas mises en cache). */
+    public Merchant get(Long merchantId) {
+        return cache.get(merchantId, id -> merchantRepository.findById(id).orElse(null));
+    }
+
+    public void invalidate(Long merchantId) {
+        cache.invalidate(merchantId);
+    }
+}
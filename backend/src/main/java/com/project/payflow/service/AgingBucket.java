@@ -0,0 +1,35 @@
+package com.project.payflow.service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Tranches de la balance âgée, selon le nombre de jours écoulés depuis l'échéance d'un crédit.
+ * Mêmes bornes que CustomerBalanceRepository.findAgingByMerchant.
+ */
+public enum AgingBucket {
+
+    // Échéance à venir, ou pas d'échéance
+    NOT_DUE,
+    DAYS_0_30,
+    DAYS_31_60,
+    DAYS_61_90,
+    OVER_90;
+
+    public static AgingBucket of(LocalDate dueDate, LocalDate asOf) {
+        if (dueDate == null) {
+            return NOT_DUE;
+        }
+        long days = ChronoUnit.DAYS.between(dueDate, asOf);
+        if (days < 0) {
+            return NOT_DUE;
+        }
+        if (days <= 30) {
+            return DAYS_0_30;
+        }
+        if (days <= 60) {
+            return DAYS_31_60;
+        }
+        return days <= 90 ? DAYS_61_90 : OVER_90;
+    }
+}
@@ -0,0 +1,83 @@
+package com.project.payflow.service;
+
+import com.project.payflow.dto.AgingBucketsDto;
+import com.project.payflow.dto.AgingCreditDto;
+import com.project.payflow.dto.AgingCustomerReportDto;
+import com.project.payflow.dto.AgingReportDto;
+import com.project.payflow.dto.CreditWithRemainingDto;
+import com.project.payflow.entities.Customer;
+import com.project.payflow.repository.CustomerBalanceRepository;
+import com.project.payflow.repository.TransactionRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+public class AgingReportService {
+
+    private final CustomerBalanceRepository customerBalanceRepository;
+    private final TransactionRepository transactionRepository;
+
+    public AgingReportService(CustomerBalanceRepository customerBalanceRepository,
+                              TransactionRepository transactionRepository) {
+        this.customerBalanceRepository = customerBalanceRepository;
+        this.transactionRepository = transactionRepository;
+    }
+
+    /**
+     * Balance âgée du merchant à la date asOf : restant dû par tranche pour chaque client, et le total.
+     * Les tranches sont calculées par la base en une seule requête (voir findAgingByMerchant).
+     */
+    @Transactional(readOnly = true)
+    public AgingReportDto getAgingReport(Long merchantId, LocalDate asOf) {
+        AgingBucketsDto total = new AgingBucketsDto(null, null);
+        List<AgingBucketsDto> customers = new ArrayList<>();
+
+        for (Object[] row : customerBalanceRepository.findAgingByMerchant(merchantId, asOf)) {
+            AgingBucketsDto buckets = new AgingBucketsDto(((Number) row[0]).longValue(), (String) row[1])
+                    .add(AgingBucket.NOT_DUE, (BigDecimal) row[2])
+                    .add(AgingBucket.DAYS_0_30, (BigDecimal) row[3])
+                    .add(AgingBucket.DAYS_31_60, (BigDecimal) row[4])
+                    .add(AgingBucket.DAYS_61_90, (BigDecimal) row[5])
+                    .add(AgingBucket.OVER_90, (BigDecimal) row[6]);
+            customers.add(buckets);
+            total.add(buckets);
+        }
+
+        return new AgingReportDto(asOf, total, customers);
+    }
+
+    /**
+     * Détail d'un client : ses crédits ouverts avec leur tranche, et les totaux par tranche.
+     * Le client doit déjà avoir été vérifié comme appartenant au merchant.
+     */
+    @Transactional(readOnly = true)
+    public AgingCustomerReportDto getCustomerAging(Long merchantId, Customer customer, LocalDate asOf) {
+        AgingBucketsDto buckets = new AgingBucketsDto(customer.getId(), customer.getName());
+        List<AgingCreditDto> credits = new ArrayList<>();
+
+        for (CreditWithRemainingDto c : transactionRepository
+                .findOpenCreditsByMerchantAndCustomer(merchantId, customer.getId())) {
+            AgingBucket bucket = AgingBucket.of(c.getDueDate(), asOf);
+            Long daysOverdue = c.getDueDate() != null ? ChronoUnit.DAYS.between(c.getDueDate(), asOf) : null;
+            credits.add(new AgingCreditDto(
+                    c.getId(),
+                    c.getDescription(),
+                    c.getTransactionDate(),
+                    c.getDueDate(),
+                    c.getAmount(),
+                    c.getRemainingAmount(),
+                    daysOverdue,
+                    bucket
+            ));
+            buckets.add(bucket, c.getRemainingAmount());
+        }
+
+        return new AgingCustomerReportDto(asOf, buckets, credits);
+    }
+}
@@ -0,0 +1,27 @@
+package com.project.payflow.service;
+
+/**
+ * Ordre dans lequel un paiement non affecté est réparti sur les crédits ouverts.
+ * Chaque stratégie porte son ORDER BY SQL (colonnes de payflow.transactions).
+ */
+public enum AllocationStrategy {
+
+    // Même ordre que l'affichage des crédits : échéance (sans échéance en dernier), date, id
+    DUE_DATE("due_date asc nulls last, transaction_date, id"),
+
+    // Le plus ancien crédit d'abord
+    OLDEST_FIRST("transaction_date, id"),
+
+    // Les crédits les plus pénalisants d'abord
+    HIGHEST_PENALTY_FIRST("coalesce(late_penalty, 0) desc, due_date asc nulls last, transaction_date, id");
+
+    private final String orderBy;
+
+    AllocationStrategy(String orderBy) {
+        this.orderBy = orderBy;
+    }
+
+    public String getOrderBy() {
+        return orderBy;
+    }
+}
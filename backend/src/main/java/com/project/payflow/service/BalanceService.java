@@ -1,33 +1,96 @@
 package com.project.payflow.service;
 
+import com.project.payflow.dto.OverdueCustomerDto;
+import com.project.payflow.entities.CustomerBalance;
 import com.project.payflow.entities.Transaction;
 import com.project.payflow.entities.TransactionType;
-import com.project.payflow.repository.TransactionRepository;
+import com.project.payflow.repository.CustomerBalanceRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class BalanceService {
 
-    private final TransactionRepository transactionRepository;
+    private final CustomerBalanceRepository customerBalanceRepository;
 
-    public BalanceService(TransactionRepository transactionRepository) {
-        this.transactionRepository = transactionRepository;
+    public BalanceService(CustomerBalanceRepository customerBalanceRepository) {
+        this.customerBalanceRepository = customerBalanceRepository;
     }
 
+    /**
+     * Solde d'un seul client : lecture par clé primaire dans customer_balances,
+     * coût constant quel que soit le nombre de clients du merchant.
+     */
     public BigDecimal getCustomerBalance(Long merchantId, Long customerId) {
-        List<Transaction> txs = transactionRepository.findByMerchantIdAndCustomerId(merchantId, customerId);
-        return txs.stream()
-                .map(t -> {
-                    if (t.getType() == TransactionType.CREDIT) {
-                        return t.getAmount();
-                    } else if (t.getType() == TransactionType.PAYMENT) {
-                        return t.getAmount().negate();
-                    }
-                    return BigDecimal.ZERO;
-                })
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return customerBalanceRepository.findById(customerId)
+                .filter(b -> b.getMerchantId().equals(merchantId))
+                .map(CustomerBalance::getBalance)
+                .orElse(BigDecimal.ZERO);
     }
-}
\ No newline at end of file
+
+    public Map<Long, BigDecimal> getBalancesByMerchant(Long merchantId) {
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        for (CustomerBalance b : customerBalanceRepository.findByMerchantId(merchantId)) {
+            balances.put(b.getCustomerId(), b.getBalance());
+        }
+        return balances;
+    }
+
+    /**
+     * Répercute une nouvelle transaction sur la projection customer_balances.
+     * Doit tourner dans la transaction qui insère la ligne, sinon les deux peuvent diverger.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyTransaction(Transaction tx) {
+        BigDecimal credits = tx.getType() == TransactionType.CREDIT ? tx.getAmount() : BigDecimal.ZERO;
+        BigDecimal payments = tx.getType() == TransactionType.PAYMENT ? tx.getAmount() : BigDecimal.ZERO;
+        LocalDate dueDate = tx.getType() == TransactionType.CREDIT ? tx.getDueDate() : null;
+
+        customerBalanceRepository.addAmounts(
+                tx.getMerchant().getId(),
+                tx.getCustomer().getId(),
+                credits,
+                payments,
+                dueDate
+        );
+    }
+
+    /**
+     * Verrouille la ligne de solde d'un client jusqu'à la fin de la transaction. À prendre avant de
+     * verrouiller ses crédits, dans le même ordre que la création d'une transaction.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void lockCustomerBalance(Long customerId) {
+        customerBalanceRepository.lockByCustomerId(customerId);
+    }
+
+    /**
+     * Recalcule le restant dû des crédits ouverts d'un client et sa plus ancienne échéance impayée
+     * après des allocations (un crédit soldé peut être celui qui la portait). Même transaction que les allocations.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyAllocations(Long merchantId, Long customerId) {
+        customerBalanceRepository.refreshOpenCredits(merchantId, customerId);
+    }
+
+    public List<OverdueCustomerDto> getOverdueCustomers(Long merchantId) {
+        return customerBalanceRepository.findOverdueByMerchant(merchantId).stream()
+                .map(row -> new OverdueCustomerDto(
+                        ((Number) row[0]).longValue(),
+                        (String) row[1],
+                        (String) row[2],
+                        (String) row[3],
+                        (BigDecimal) row[4],
+                        (BigDecimal) row[6],
+                        (LocalDate) row[5]
+                ))
+                .toList();
+    }
+}
@@ -0,0 +1,99 @@
+package com.project.payflow.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Baux en base (table scheduler_leases) pour coordonner les tâches planifiées entre instances.
+ * Chaque opération est une requête atomique en auto-commit, indépendante de toute transaction
+ * métier : un bail pris reste visible des autres nœuds immédiatement.
+ */
+@Service
+public class LeaseService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String nodeId;
+
+    public LeaseService(JdbcTemplate jdbcTemplate,
+                        @Value("${payflow.node-id:}") String nodeId) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.nodeId = nodeId.isBlank() ? defaultNodeId() : nodeId;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Prend le bail s'il est libre ou expiré. Retourne false s'il est encore détenu,
+     * y compris par ce nœud (un travail marqué terminé par holdUntil n'est pas refait).
+     */
+    public boolean tryAcquire(String name, Duration ttl) {
+        int updated = jdbcTemplate.update("""
+                insert into payflow.scheduler_leases (name, owner, locked_until, acquired_at)
+                values (?, ?, now() + make_interval(secs => ?), now())
+                on conflict (name) do update
+                    set owner = excluded.owner,
+                        locked_until = excluded.locked_until,
+                        acquired_at = excluded.acquired_at
+                    where payflow.scheduler_leases.locked_until < now()
+                """, name, nodeId, (double) ttl.toMillis() / 1000);
+        return updated == 1;
+    }
+
+    /**
+     * Prolonge de ttl un bail détenu par ce nœud, pendant un travail plus long que le bail initial.
+     * Retourne false si un autre nœud l'a repris entre-temps : le travail doit alors s'arrêter.
+     */
+    public boolean renew(String name, Duration ttl) {
+        return jdbcTemplate.update("""
+                update payflow.scheduler_leases
+                set locked_until = now() + make_interval(secs => ?)
+                where name = ? and owner = ?
+                """, (double) ttl.toMillis() / 1000, name, nodeId) == 1;
+    }
+
+    /**
+     * Garde le bail jusqu'à until (ex. fin de journée une fois le travail terminé),
+     * pour qu'aucun autre nœud ne le refasse. Sans effet si le bail a été repris entre-temps.
+     */
+    public boolean holdUntil(String name, OffsetDateTime until) {
+        return jdbcTemplate.update("""
+                update payflow.scheduler_leases
+                set locked_until = ?
+                where name = ? and owner = ?
+                """, until, name, nodeId) == 1;
+    }
+
+    /** Libère le bail s'il appartient toujours à ce nœud. */
+    public void release(String name) {
+        jdbcTemplate.update("""
+                update payflow.scheduler_leases
+                set locked_until = now()
+                where name = ? and owner = ?
+                """, name, nodeId);
+    }
+
+    /** Supprime les baux expirés avant la date donnée (baux journaliers des jours passés). */
+    public int purgeExpiredBefore(OffsetDateTime before) {
+        return jdbcTemplate.update(
+                "delete from payflow.scheduler_leases where locked_until < ?", before);
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
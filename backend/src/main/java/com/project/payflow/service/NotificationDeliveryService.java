@@ -2,92 +2,236 @@
 package com.project.payflow.service;
 
 import com.project.payflow.entities.OutboundNotification;
+import com.project.payflow.notification.CircuitBreaker;
+import com.project.payflow.notification.DeliveryGuards;
+import com.project.payflow.notification.NotificationChannel;
+import com.project.payflow.notification.PermanentDeliveryException;
 import com.project.payflow.repository.OutboundNotificationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.time.OffsetDateTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Envoi des notifications sortantes. Les lignes PENDING sont réservées par lots
+ * (FOR UPDATE SKIP LOCKED) par des workers dédiés à chaque canal : un fournisseur lent
+ * ne bloque que son canal, et plusieurs workers ou nœuds se partagent la file sans doublon.
+ * Le limiteur du canal fixe la taille du lot : ses jetons sont pris avant la réservation, seules
+ * les lignes envoyables tout de suite passent en SENDING. Chaque ligne passe ensuite par le quota
+ * du merchant puis le disjoncteur ; une ligne bloquée par l'un d'eux est simplement reportée.
+ *
+ * Les canaux sont les beans NotificationChannel : le lot autorisé est confié d'un coup au canal
+ * (envoi de masse ou envois en parallèle), puis les résultats sont attendus avec un délai maximal.
+ */
 @Service
 public class NotificationDeliveryService {
 
-    private final OutboundNotificationRepository outboundNotificationRepository;
+    private static final Logger log = LoggerFactory.getLogger(NotificationDeliveryService.class);
 
-    public NotificationDeliveryService(OutboundNotificationRepository outboundNotificationRepository) {
+    private final OutboundNotificationRepository outboundNotificationRepository;
+    private final DeliveryGuards deliveryGuards;
+    private final Map<String, NotificationChannel> channels = new HashMap<>();
+    private final String nodeId;
+    private final int batchSize;
+    private final int workersPerChannel;
+    private final Duration claimTimeout;
+    private final int maxAttempts;
+    private final Duration retryBaseDelay;
+    private final Duration retryMaxDelay;
+    private final Duration deferDelay;
+    private final Duration sendTimeout;
+
+    private final Map<String, SimpleAsyncTaskExecutor> executors = new HashMap<>();
+    private final Map<String, AtomicInteger> activeWorkers = new HashMap<>();
+    private final AtomicLong claimSequence = new AtomicLong();
+
+    public NotificationDeliveryService(OutboundNotificationRepository outboundNotificationRepository,
+                                       LeaseService leaseService,
+                                       DeliveryGuards deliveryGuards,
+                                       List<NotificationChannel> notificationChannels,
+                                       @Value("${payflow.delivery.batch-size:100}") int batchSize,
+                                       @Value("${payflow.delivery.workers-per-channel:4}") int workersPerChannel,
+                                       @Value("${payflow.delivery.claim-timeout:PT5M}") Duration claimTimeout,
+                                       @Value("${payflow.delivery.max-attempts:8}") int maxAttempts,
+                                       @Value("${payflow.delivery.retry-base-delay:PT30S}") Duration retryBaseDelay,
+                                       @Value("${payflow.delivery.retry-max-delay:PT1H}") Duration retryMaxDelay,
+                                       @Value("${payflow.delivery.defer-delay:PT10S}") Duration deferDelay,
+                                       @Value("${payflow.delivery.send-timeout:PT30S}") Duration sendTimeout) {
         this.outboundNotificationRepository = outboundNotificationRepository;
+        this.deliveryGuards = deliveryGuards;
+        this.nodeId = leaseService.getNodeId();
+        this.batchSize = Math.max(1, batchSize);
+        this.workersPerChannel = Math.max(1, workersPerChannel);
+        this.claimTimeout = claimTimeout;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBaseDelay = retryBaseDelay;
+        this.retryMaxDelay = retryMaxDelay;
+        this.deferDelay = deferDelay;
+        this.sendTimeout = sendTimeout;
+
+        for (NotificationChannel notificationChannel : notificationChannels) {
+            String channel = notificationChannel.getName();
+            if (channels.put(channel, notificationChannel) != null) {
+                throw new IllegalStateException("Canal déclaré deux fois : " + channel);
+            }
+            SimpleAsyncTaskExecutor executor =
+                    new SimpleAsyncTaskExecutor("delivery-" + channel.toLowerCase().replace('_', '-') + "-");
+            executor.setConcurrencyLimit(this.workersPerChannel);
+            executors.put(channel, executor);
+            activeWorkers.put(channel, new AtomicInteger());
+        }
     }
 
-    @Transactional
-    public void processPendingBatch() {
-        // On limite à 100 pour ne pas tout avaler d'un coup
-        List<OutboundNotification> pendings =
-                outboundNotificationRepository.findTop100ByStatusOrderByCreatedAtAsc("PENDING");
+    /** Nombre maximal de workers en vol, tous canaux confondus (chacun peut tenir une connexion). */
+    public int getMaxWorkers() {
+        return workersPerChannel * channels.size();
+    }
 
-        if (pendings.isEmpty()) {
-            return;
+    /**
+     * Appelé en continu par le scheduler : reprend les réservations abandonnées puis démarre
+     * un worker par canal s'il n'y en a aucun. Un worker qui trouve un lot plein en démarre
+     * un autre, jusqu'à workersPerChannel ; chacun s'arrête quand la file du canal est vide, que le
+     * canal n'a plus de jeton ou que son lot a été entièrement reporté (quota, disjoncteur).
+     */
+    public void dispatchPending() {
+        int released = outboundNotificationRepository.releaseStaleClaims(claimTimeout);
+        if (released > 0) {
+            log.warn("Released {} outbound notifications stuck in SENDING", released);
         }
+        outboundNotificationRepository.failUnknownChannels(channels.keySet());
 
-        for (OutboundNotification n : pendings) {
-            try {
-                switch (n.getChannel()) {
-                    case "IN_APP" -> handleInApp(n);
-                    case "SMS" -> handleSms(n);
-                    case "EMAIL" -> handleEmail(n);
-                    case "WHATSAPP" -> handleWhatsApp(n);
-                    default -> handleUnknownChannel(n);
-                }
+        for (String channel : channels.keySet()) {
+            if (activeWorkers.get(channel).get() == 0) {
+                startWorker(channel);
+            }
+        }
+    }
 
-                // Si tout s'est bien passé
-                n.setStatus("SENT");
-                n.setSentAt(OffsetDateTime.now());
-                n.setErrorMessage(null);
+    private void startWorker(String channel) {
+        AtomicInteger active = activeWorkers.get(channel);
+        int current;
+        do {
+            current = active.get();
+            if (current >= workersPerChannel) {
+                return;
+            }
+        } while (!active.compareAndSet(current, current + 1));
 
-            } catch (Exception e) {
-                // En cas d'erreur d'envoi
-                n.setStatus("FAILED");
-                n.setErrorMessage(e.getMessage());
+        executors.get(channel).execute(() -> {
+            try {
+                while (processBatch(channel) > 0) {
+                    // on continue tant que le lot précédent a envoyé quelque chose
+                }
+            } catch (RuntimeException e) {
+                log.error("Delivery worker for channel {} stopped", channel, e);
+            } finally {
+                active.decrementAndGet();
             }
+        });
+    }
 
-            outboundNotificationRepository.save(n);
+    /**
+     * Réserve, envoie et solde un lot du canal. Retourne le nombre d'envois tentés : 0 (le worker
+     * s'arrête) si la file est vide, si le canal n'a plus de jeton ou si tout le lot a été reporté.
+     */
+    int processBatch(String channel) {
+        CircuitBreaker breaker = deliveryGuards.breaker(channel);
+        if (breaker.isOpen()) {
+            return 0; // fournisseur en panne : on laisse la file en attente
         }
-    }
 
-    private void handleInApp(OutboundNotification n) {
-        // Pour l'instant, les notifications IN_APP sont déjà visibles via la table notifications,
-        // donc ici on se contente de marquer l'outbound comme "traitée".
-        System.out.println("[NOTIF] IN_APP for customer "
-                + (n.getCustomer() != null ? n.getCustomer().getId() : "null")
-                + " : " + n.getTitle() + " -> " + n.getMessage());
-    }
+        // Jetons pris avant la réservation : on ne réserve que les lignes envoyables tout de suite.
+        // Disjoncteur en essai (HALF_OPEN) : une seule ligne
+        int limit = breaker.getState() == CircuitBreaker.State.HALF_OPEN ? 1 : batchSize;
+        int tokens = deliveryGuards.acquireChannel(channel, limit);
+        if (tokens == 0) {
+            return 0; // débit du canal atteint : le scheduler relancera un worker
+        }
 
-    private void handleSms(OutboundNotification n) {
-        // Ici on branchera Twilio ou un SMS local.
-        // Pour l'instant : simple log (et marquage SENT si pas d'exception).
-        String phone = n.getCustomer() != null ? n.getCustomer().getPhone() : null;
-        if (phone == null || phone.isBlank()) {
-            throw new IllegalStateException("Pas de numéro de téléphone pour ce client");
+        // Propriétaire propre à ce lot : deux workers du même nœud ne soldent jamais les lignes l'un de l'autre
+        String owner = nodeId + "#" + claimSequence.incrementAndGet();
+        List<Long> ids = outboundNotificationRepository.claimBatch(channel, tokens, owner);
+        deliveryGuards.releaseChannel(channel, tokens - ids.size());
+        if (ids.isEmpty()) {
+            return 0;
         }
 
-        System.out.println("[NOTIF] SMS to " + phone + " : " + n.getMessage());
-        // TODO plus tard: intégration Twilio / SMS local
-    }
+        List<Long> sent = new ArrayList<>(ids.size());
+        Map<Long, String> retry = new HashMap<>();
+        Map<Long, String> deadLetter = new HashMap<>();
+        List<Long> deferred = new ArrayList<>();
+
+        List<OutboundNotification> permitted = new ArrayList<>(ids.size());
+        for (OutboundNotification n : outboundNotificationRepository.findAllWithCustomerByIdIn(ids)) {
+            // Disjoncteur d'abord (sans consommer de quota), l'envoi d'essai en dernier
+            if (breaker.isOpen()
+                    || !deliveryGuards.tryAcquireMerchant(channel, n.getMerchant().getId())
+                    || !breaker.tryAcquirePermission()) {
+                deferred.add(n.getId());
+            } else {
+                permitted.add(n);
+            }
+        }
+        deliveryGuards.releaseChannel(channel, deferred.size()); // jeton du canal non utilisé
 
-    private void handleEmail(OutboundNotification n) {
-        // TODO: intégrer un fournisseur email (SendGrid, Postmark, etc.)
-        System.out.println("[NOTIF] EMAIL for customer "
-                + (n.getCustomer() != null ? n.getCustomer().getId() : "null")
-                + " : " + n.getTitle() + " -> " + n.getMessage());
-    }
+        // File chargée et lot réellement envoyé (pas majoritairement reporté) : un worker de plus si la limite le permet
+        if (ids.size() == batchSize && permitted.size() * 2 > ids.size()) {
+            startWorker(channel);
+        }
 
-    private void handleWhatsApp(OutboundNotification n) {
-        // TODO: intégrer API WhatsApp
-        System.out.println("[NOTIF] WHATSAPP for customer "
-                + (n.getCustomer() != null ? n.getCustomer().getId() : "null")
-                + " : " + n.getMessage());
-    }
+        // Tout le lot part en même temps ; on n'attend qu'ensuite les réponses, chacune au plus sendTimeout
+        Map<Long, CompletableFuture<Void>> results = new HashMap<>();
+        if (!permitted.isEmpty()) {
+            try {
+                channels.get(channel).sendBatch(permitted).forEach((id, result) ->
+                        results.put(id, result.orTimeout(sendTimeout.toMillis(), TimeUnit.MILLISECONDS)));
+            } catch (RuntimeException e) {
+                permitted.forEach(n -> results.putIfAbsent(n.getId(), CompletableFuture.failedFuture(e)));
+            }
+        }
+
+        for (OutboundNotification n : permitted) {
+            CompletableFuture<Void> result = results.get(n.getId());
+            try {
+                if (result == null) {
+                    throw new IllegalStateException("Pas de résultat du canal " + channel);
+                }
+                result.join();
+                sent.add(n.getId());
+                breaker.onSuccess();
+            } catch (RuntimeException e) {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                if (cause instanceof PermanentDeliveryException) {
+                    // Inutile de réessayer (le fournisseur, lui, a répondu)
+                    deadLetter.put(n.getId(), cause.getMessage());
+                    breaker.onSuccess();
+                } else {
+                    // Erreur transitoire (fournisseur indisponible, délai dépassé...) : nouvelle tentative plus tard
+                    retry.put(n.getId(), cause instanceof TimeoutException
+                            ? "Délai d'envoi dépassé (" + sendTimeout + ")"
+                            : cause.getMessage());
+                    breaker.onFailure();
+                }
+            }
+        }
 
-    private void handleUnknownChannel(OutboundNotification n) {
-        throw new IllegalArgumentException("Canal inconnu : " + n.getChannel());
+        outboundNotificationRepository.markSent(sent, owner);
+        outboundNotificationRepository.markDeferred(deferred, owner, deferDelay);
+        outboundNotificationRepository.markRetry(retry, owner, maxAttempts, retryBaseDelay, retryMaxDelay);
+        outboundNotificationRepository.markDeadLetter(deadLetter, owner);
+        return permitted.size();
     }
-}
\ No newline at end of file
+}
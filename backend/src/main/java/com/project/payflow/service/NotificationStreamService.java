@@ -0,0 +1,135 @@
+package com.project.payflow.service;
+
+import com.project.payflow.dto.NotificationDto;
+import com.project.payflow.entities.Notification;
+import com.project.payflow.repository.NotificationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * Flux SSE des notifications in-app, par merchant. Les changements arrivent de
+ * NotificationEventListener (LISTEN/NOTIFY) : on pousse alors à chaque flux ouvert du merchant
+ * les nouvelles notifications (event "notification") et le nombre de non lues ("unread-count").
+ */
+@Service
+public class NotificationStreamService {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationStreamService.class);
+
+    // Nouvelles notifications poussées au plus par changement (le reste via la liste)
+    private static final int MAX_PUSHED = 20;
+
+    private final NotificationRepository notificationRepository;
+    private final long timeoutMillis;
+
+    private final Map<Long, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+
+    public NotificationStreamService(NotificationRepository notificationRepository,
+                                     @Value("${payflow.notifications.stream.timeout:PT30M}") Duration timeout) {
+        this.notificationRepository = notificationRepository;
+        this.timeoutMillis = timeout.toMillis();
+    }
+
+    public SseEmitter subscribe(Long merchantId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscription subscription = new Subscription(emitter, notificationRepository.findMaxIdByMerchantId(merchantId));
+
+        Set<Subscription> merchantSubscriptions =
+                subscriptions.computeIfAbsent(merchantId, id -> new CopyOnWriteArraySet<>());
+        merchantSubscriptions.add(subscription);
+
+        Runnable remove = () -> unsubscribe(merchantId, subscription);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+
+        // État initial : le client n'a plus besoin d'interroger unread-count
+        send(merchantId, subscription, SseEmitter.event()
+                .name("unread-count")
+                .data(Map.of("unreadCount", notificationRepository.countByMerchantIdAndReadFalse(merchantId))));
+        return emitter;
+    }
+
+    /** Appelé pour chaque merchant dont les notifications ont changé (sur n'importe quel nœud). */
+    public void publish(Collection<Long> merchantIds) {
+        for (Long merchantId : merchantIds) {
+            Set<Subscription> merchantSubscriptions = subscriptions.get(merchantId);
+            if (merchantSubscriptions == null || merchantSubscriptions.isEmpty()) {
+                continue; // aucun flux ouvert sur ce nœud
+            }
+            try {
+                publishToMerchant(merchantId, merchantSubscriptions);
+            } catch (RuntimeException e) {
+                log.warn("Cannot publish notification changes for merchant {}", merchantId, e);
+            }
+        }
+    }
+
+    private void publishToMerchant(Long merchantId, Set<Subscription> merchantSubscriptions) {
+        long afterId = merchantSubscriptions.stream().mapToLong(s -> s.lastId).min().orElse(0);
+        List<Notification> created = notificationRepository
+                .findByMerchantIdAndIdGreaterThanOrderByIdAsc(merchantId, afterId, Limit.of(MAX_PUSHED));
+        long unreadCount = notificationRepository.countByMerchantIdAndReadFalse(merchantId);
+
+        for (Subscription subscription : merchantSubscriptions) {
+            for (Notification n : created) {
+                if (n.getId() > subscription.lastId) {
+                    send(merchantId, subscription, SseEmitter.event()
+                            .id(String.valueOf(n.getId()))
+                            .name("notification")
+                            .data(NotificationDto.fromEntity(n)));
+                    subscription.lastId = n.getId();
+                }
+            }
+            send(merchantId, subscription, SseEmitter.event()
+                    .name("unread-count")
+                    .data(Map.of("unreadCount", unreadCount)));
+        }
+    }
+
+    // Commentaire périodique : garde la connexion ouverte derrière les proxies et détecte les clients partis
+    @Scheduled(fixedDelayString = "${payflow.notifications.stream.heartbeat:PT25S}")
+    public void heartbeat() {
+        subscriptions.forEach((merchantId, merchantSubscriptions) ->
+                merchantSubscriptions.forEach(s -> send(merchantId, s, SseEmitter.event().comment("ping"))));
+    }
+
+    private void send(Long merchantId, Subscription subscription, SseEmitter.SseEventBuilder event) {
+        try {
+            subscription.emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            unsubscribe(merchantId, subscription);
+        }
+    }
+
+    private void unsubscribe(Long merchantId, Subscription subscription) {
+        subscriptions.computeIfPresent(merchantId, (id, set) -> {
+            set.remove(subscription);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private static final class Subscription {
+        private final SseEmitter emitter;
+        private volatile long lastId;
+
+        private Subscription(SseEmitter emitter, long lastId) {
+            this.emitter = emitter;
+            this.lastId = lastId;
+        }
+    }
+}
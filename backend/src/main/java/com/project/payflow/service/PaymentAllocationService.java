@@ -0,0 +1,193 @@
+package com.project.payflow.service;
+
+import com.project.payflow.dto.PaymentAllocationRequest;
+import com.project.payflow.entities.Customer;
+import com.project.payflow.entities.Merchant;
+import com.project.payflow.entities.PaymentAllocation;
+import com.project.payflow.entities.Transaction;
+import com.project.payflow.entities.TransactionType;
+import com.project.payflow.repository.PaymentAllocationRepository;
+import com.project.payflow.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class PaymentAllocationService {
+
+    private final TransactionRepository transactionRepository;
+    private final PaymentAllocationRepository paymentAllocationRepository;
+    private final BalanceService balanceService;
+    private final TransactionTemplate transactionTemplate;
+    private final AllocationStrategy defaultStrategy;
+    private final boolean autoAllocate;
+
+    public PaymentAllocationService(TransactionRepository transactionRepository,
+                                    PaymentAllocationRepository paymentAllocationRepository,
+                                    BalanceService balanceService,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${payflow.allocation.strategy:DUE_DATE}") AllocationStrategy defaultStrategy,
+                                    @Value("${payflow.allocation.auto:true}") boolean autoAllocate) {
+        this.transactionRepository = transactionRepository;
+        this.paymentAllocationRepository = paymentAllocationRepository;
+        this.balanceService = balanceService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.defaultStrategy = defaultStrategy;
+        this.autoAllocate = autoAllocate;
+    }
+
+    public boolean isAutoAllocateEnabled() {
+        return autoAllocate;
+    }
+
+    /**
+     * Affecte un paiement aux crédits demandés par le client.
+     * Nombre d'allers-retours fixe quel que soit le nombre de crédits :
+     * un SELECT ... FOR UPDATE des crédits, un INSERT batché des allocations,
+     * et les UPDATE de remaining_amount batchés par Hibernate au flush.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void allocate(Merchant merchant,
+                         Customer customer,
+                         Transaction payment,
+                         List<PaymentAllocationRequest> requests) {
+
+        List<PaymentAllocationRequest> valid = requests.stream()
+                .filter(r -> r.getCreditId() != null
+                        && r.getAmount() != null
+                        && r.getAmount().compareTo(BigDecimal.ZERO) > 0)
+                .toList();
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        // 1) Un seul chargement (verrouillé) de tous les crédits référencés
+        List<Long> creditIds = valid.stream().map(PaymentAllocationRequest::getCreditId).distinct().toList();
+        Map<Long, Transaction> credits = transactionRepository.findAllByIdForUpdate(creditIds).stream()
+                .collect(Collectors.toMap(Transaction::getId, Function.identity()));
+
+        // 2) Validation en mémoire, avec le restant dû courant de chaque crédit
+        List<PaymentAllocation> allocations = new ArrayList<>(valid.size());
+        for (PaymentAllocationRequest allocReq : valid) {
+            Transaction credit = credits.get(allocReq.getCreditId());
+            if (credit == null) {
+                throw new ResponseStatusException(
+                        HttpStatus.BAD_REQUEST, "Credit transaction not found: " + allocReq.getCreditId());
+            }
+
+            // Vérifier que c'est bien un CREDIT du même client/merchant
+            if (credit.getType() != TransactionType.CREDIT) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Allocated transaction is not a CREDIT");
+            }
+            if (!credit.getMerchant().getId().equals(merchant.getId()) ||
+                    !credit.getCustomer().getId().equals(customer.getId())) {
+                throw new ResponseStatusException(
+                        HttpStatus.BAD_REQUEST,
+                        "Credit does not belong to this merchant/customer"
+                );
+            }
+
+            BigDecimal remaining = credit.getRemainingAmount();
+            if (allocReq.getAmount().compareTo(remaining) > 0) {
+                throw new ResponseStatusException(
+                        HttpStatus.BAD_REQUEST,
+                        "Allocated amount for credit " + credit.getId() +
+                        " exceeds remaining amount (" + remaining + ")"
+                );
+            }
+            credit.setRemainingAmount(remaining.subtract(allocReq.getAmount()));
+
+            allocations.add(new PaymentAllocation()
+                    .setMerchant(merchant)
+                    .setCustomer(customer)
+                    .setPayment(payment)
+                    .setCredit(credit)
+                    .setAllocatedAmount(allocReq.getAmount()));
+        }
+
+        // 3) Insertion batchée (IDENTITY empêche Hibernate de batcher lui-même)
+        paymentAllocationRepository.insertAll(allocations);
+
+        // 4) Crédits ouverts du client dans la projection customer_balances
+        balanceService.applyAllocations(merchant.getId(), customer.getId());
+    }
+
+    /**
+     * Répartit automatiquement un paiement sans allocations explicites sur les crédits
+     * ouverts du client, selon la stratégie configurée. Retourne le montant affecté
+     * (le reste éventuel reste non affecté, comme une avance).
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public BigDecimal allocateAutomatically(Transaction payment) {
+        Long merchantId = payment.getMerchant().getId();
+        Long customerId = payment.getCustomer().getId();
+        BigDecimal allocated = transactionRepository.allocateToOpenCredits(
+                merchantId,
+                customerId,
+                payment.getId(),
+                payment.getAmount(),
+                defaultStrategy
+        );
+        if (allocated.compareTo(BigDecimal.ZERO) > 0) {
+            balanceService.applyAllocations(merchantId, customerId);
+        }
+        return allocated;
+    }
+
+    /**
+     * Reprise des paiements historiques non (ou partiellement) affectés d'un merchant,
+     * du plus ancien au plus récent. Retourne le nombre de paiements qui ont reçu une allocation.
+     *
+     * Une transaction par client : la ligne de solde du client est verrouillée avant ses crédits,
+     * dans le même ordre qu'une création de transaction (pas d'interblocage avec elle), et les
+     * verrous ne sont tenus que le temps d'un client.
+     */
+    public int backfillUnallocatedPayments(Long merchantId, AllocationStrategy strategy) {
+        AllocationStrategy effective = strategy != null ? strategy : defaultStrategy;
+        Set<Long> customerIds = new LinkedHashSet<>();
+        for (Object[] row : transactionRepository.findUnallocatedPayments(merchantId)) {
+            customerIds.add(((Number) row[1]).longValue());
+        }
+
+        int touched = 0;
+        for (Long customerId : customerIds) {
+            touched += transactionTemplate.execute(status -> backfillCustomer(merchantId, customerId, effective));
+        }
+        return touched;
+    }
+
+    private int backfillCustomer(Long merchantId, Long customerId, AllocationStrategy strategy) {
+        balanceService.lockCustomerBalance(customerId);
+
+        // Relu sous le verrou : un paiement a pu être affecté entre-temps
+        int touched = 0;
+        for (Object[] row : transactionRepository.findUnallocatedPaymentsByCustomer(merchantId, customerId)) {
+            Long paymentId = ((Number) row[0]).longValue();
+            BigDecimal unallocated = (BigDecimal) row[1];
+
+            BigDecimal allocated = transactionRepository.allocateToOpenCredits(
+                    merchantId, customerId, paymentId, unallocated, strategy);
+            if (allocated.compareTo(BigDecimal.ZERO) > 0) {
+                touched++;
+            }
+        }
+        if (touched > 0) {
+            balanceService.applyAllocations(merchantId, customerId);
+        }
+        return touched;
+    }
+}
@@ -1,152 +1,108 @@
 package com.project.payflow.service;
 
-import com.project.payflow.entities.*;
-import com.project.payflow.repository.NotificationRepository;
+import com.project.payflow.entities.Merchant;
+import com.project.payflow.repository.MerchantRepository;
 import com.project.payflow.repository.PaymentReminderRepository;
-import com.project.payflow.repository.TransactionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import com.project.payflow.service.NotificationPreferencesService;
-import com.project.payflow.repository.OutboundNotificationRepository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.util.List;
 
 @Service
 public class PaymentReminderService {
 
-   private final TransactionRepository transactionRepository;
-    private final NotificationRepository notificationRepository;
     private final PaymentReminderRepository paymentReminderRepository;
-    private final BalanceService balanceService;
     private final ReminderSettingsService reminderSettingsService;
-    private final OutboundNotificationRepository outboundNotificationRepository;
-    private final NotificationPreferencesService notificationPreferencesService;
+    private final MerchantRepository merchantRepository;
+    private final MeterRegistry meterRegistry;
 
-    public PaymentReminderService(TransactionRepository transactionRepository,
-                                  NotificationRepository notificationRepository,
-                                  PaymentReminderRepository paymentReminderRepository,
-                                  BalanceService balanceService,
+    public PaymentReminderService(PaymentReminderRepository paymentReminderRepository,
                                   ReminderSettingsService reminderSettingsService,
-                                  OutboundNotificationRepository outboundNotificationRepository,
-                                  NotificationPreferencesService notificationPreferencesService) {
-        this.transactionRepository = transactionRepository;
-        this.notificationRepository = notificationRepository;
+                                  MerchantRepository merchantRepository,
+                                  MeterRegistry meterRegistry) {
         this.paymentReminderRepository = paymentReminderRepository;
-        this.balanceService = balanceService;
         this.reminderSettingsService = reminderSettingsService;
-        this.outboundNotificationRepository = outboundNotificationRepository;
-        this.notificationPreferencesService = notificationPreferencesService;
+        this.merchantRepository = merchantRepository;
+        this.meterRegistry = meterRegistry;
     }
-  @Transactional
-    public void generateDailyRemindersForMerchant(Merchant merchant) {
-        Long merchantId = merchant.getId();
-        LocalDate today = LocalDate.now();
+
+    /**
+     * Génère les rappels du jour d'un merchant : une requête ensembliste par niveau,
+     * quel que soit le nombre de crédits concernés. Retourne le nombre de rappels créés.
+     * La date du jour est fournie par l'appelant pour que tout un run utilise la même.
+     */
+    @Transactional
+    public int generateDailyRemindersForMerchant(Long merchantId, LocalDate today) {
+        Merchant merchant = merchantRepository.getReferenceById(merchantId);
 
         // Lire (ou créer) les réglages du merchant
         var settings = reminderSettingsService.getOrCreateDefault(merchant);
         if (!settings.isEnabled()) {
-            return; // rappels désactivés pour ce merchant
+            return 0; // rappels désactivés pour ce merchant
         }
 
+        int created = 0;
+
         // 1) DUE_SOON : J - dueSoonDaysBefore
         int dueSoonBefore = settings.getDueSoonDaysBefore() != null
                 ? settings.getDueSoonDaysBefore()
                 : 0;
         LocalDate dueSoonTarget = today.plusDays(dueSoonBefore * 1L * -1); // J - N
-        handleLevel(merchant, dueSoonTarget, 1, "DUE_SOON");
+        created += handleLevel(merchant, dueSoonTarget, 1, "DUE_SOON");
 
         // 2) OVERDUE niveaux
         Integer od1 = settings.getOverdueDays1();
         if (od1 != null && od1 > 0) {
             LocalDate target1 = today.minusDays(od1.longValue());
-            handleLevel(merchant, target1, 2, "OVERDUE");
+            created += handleLevel(merchant, target1, 2, "OVERDUE");
         }
 
         Integer od2 = settings.getOverdueDays2();
         if (od2 != null && od2 > 0) {
             LocalDate target2 = today.minusDays(od2.longValue());
-            handleLevel(merchant, target2, 3, "OVERDUE");
+            created += handleLevel(merchant, target2, 3, "OVERDUE");
         }
-    }
-
-    private void handleLevel(Merchant merchant,
-                             LocalDate targetDueDate,
-                             int level,
-                             String type) {
-
-        Long merchantId = merchant.getId();
-
-        List<Transaction> credits =
-                transactionRepository.findCreditsByMerchantAndDueDate(merchantId, targetDueDate);
-
-
-        for (Transaction credit : credits) {
-            Long customerId = credit.getCustomer().getId();
-            LocalDate dueDate = credit.getDueDate();
-            System.out.println("merchant id:"+credit.getMerchant().getId()+"id de transaction:"+credit.getId()+" montant: "+credit.getAmount());
-
-            // 1) éviter les doublons
-            boolean alreadySent = paymentReminderRepository
-                    .existsByMerchantIdAndCustomerIdAndDueDateAndReminderLevel(
-                            merchantId, customerId, dueDate, level);
-            if (alreadySent) continue;
 
-            // 2) vérifier que le client a encore une dette > 0
-            BigDecimal balance = balanceService.getCustomerBalance(merchantId, customerId);
-System.out.println("Balance client " + customerId + " = " + balance);
-            if (balance.compareTo(BigDecimal.ZERO) <= 0) continue;
-
-            // 3) créer la notification
-            Notification notif = new Notification()
-                    .setMerchant(merchant)
-                    .setCustomer(credit.getCustomer())
-                    .setTitle(type.equals("DUE_SOON") ? "Paiement à échéance" : "Paiement en retard")
-                    .setMessage(buildMessage(credit, type));
-            notificationRepository.save(notif);
-
-            NotificationPreferences prefs =
-                    notificationPreferencesService.getOrCreateDefault(merchant, credit.getCustomer());
-
-                    
-                // Pour l’instant, on ne fait que IN_APP comme canal principal,
-                // mais la structure permet d’ajouter SMS/EMAIL plus tard
-                String channel = prefs.isAllowSms() ? "SMS" : "IN_APP";
-
-                OutboundNotification out = new OutboundNotification()
-                        .setMerchant(merchant)
-                        .setCustomer(credit.getCustomer())
-                        .setChannel(channel)
-                        .setType("REMINDER")
-                        .setTitle(notif.getTitle())
-                        .setMessage(notif.getMessage())
-                        .setStatus("PENDING");
-
-                outboundNotificationRepository.save(out);
+        return created;
+    }
 
-            // 4) enregistrer l’historique
-            PaymentReminder reminder = new PaymentReminder()
-                    .setMerchant(merchant)
-                    .setCustomer(credit.getCustomer())
-                    .setDueDate(dueDate)
-                    .setReminderLevel(level)
-                    .setReminderType(type);
-            paymentReminderRepository.save(reminder);
-        }
+    private int handleLevel(Merchant merchant,
+                            LocalDate targetDueDate,
+                            int level,
+                            String type) {
+        boolean dueSoon = "DUE_SOON".equals(type);
+
+        int created = paymentReminderRepository.insertRemindersForDueDate(
+                merchant.getId(),
+                targetDueDate,
+                level,
+                type,
+                dueSoon ? "Paiement à échéance" : "Paiement en retard",
+                dueSoon ? " arrive à échéance le " : " est en retard depuis le "
+        );
+        countAfterCommit(level, type, created);
+        return created;
     }
 
-    private String buildMessage(Transaction credit, String type) {
-        String clientName = credit.getCustomer().getName();
-        System.out.println("id du transaction de crédit : " + credit.getId());
-        if ("DUE_SOON".equals(type)) {
-            return "Le crédit de " + credit.getAmount() +
-                   " pour le client " + clientName +
-                   " arrive à échéance le " + credit.getDueDate() + ".";
-        } else {
-            return "Le crédit de " + credit.getAmount() +
-                   " pour le client " + clientName +
-                   " est en retard depuis le " + credit.getDueDate() + ".";
+    // payflow.reminders.created{level, type} : compté au commit, un rollback ne gonfle pas le compteur
+    private void countAfterCommit(int level, String type, int created) {
+        if (created == 0) {
+            return;
+        }
+        var counter = meterRegistry.counter("payflow.reminders.created",
+                "level", String.valueOf(level), "type", type);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            counter.increment(created);
+            return;
         }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                counter.increment(created);
+            }
+        });
     }
-}
\ No newline at end of file
+}
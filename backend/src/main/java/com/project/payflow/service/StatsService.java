@@ -0,0 +1,64 @@
+package com.project.payflow.service;
+
+import com.project.payflow.dto.StatsDto;
+import com.project.payflow.repository.CustomerBalanceRepository;
+import com.project.payflow.repository.CustomerRepository;
+import com.project.payflow.repository.TransactionRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Service
+public class StatsService {
+
+    // Bornes utilisées quand la période est ouverte d'un côté (évite les paramètres nullables en SQL)
+    static final LocalDate MIN_DATE = LocalDate.of(1, 1, 1);
+    static final LocalDate MAX_DATE = LocalDate.of(9999, 12, 31);
+
+    private final TransactionRepository transactionRepository;
+    private final CustomerRepository customerRepository;
+    private final CustomerBalanceRepository customerBalanceRepository;
+
+    public StatsService(TransactionRepository transactionRepository,
+                        CustomerRepository customerRepository,
+                        CustomerBalanceRepository customerBalanceRepository) {
+        this.transactionRepository = transactionRepository;
+        this.customerRepository = customerRepository;
+        this.customerBalanceRepository = customerBalanceRepository;
+    }
+
+    /**
+     * Statistiques du merchant sur la période [from, to] (bornes optionnelles).
+     * Tout est agrégé par la base : aucune entité Transaction n'est chargée.
+     */
+    @Transactional(readOnly = true)
+    public StatsDto getStats(Long merchantId, LocalDate from, LocalDate to) {
+        long clientsTotal = customerRepository.countByMerchantId(merchantId);
+
+        // Sans période : tout est déjà agrégé dans customer_balances
+        if (from == null && to == null) {
+            Object[] totals = customerBalanceRepository.findTotalsByMerchant(merchantId).get(0);
+            return new StatsDto(
+                    (BigDecimal) totals[0],
+                    (BigDecimal) totals[1],
+                    ((Number) totals[2]).longValue(),
+                    clientsTotal
+            ).setTotalCredits((BigDecimal) totals[3]);
+        }
+
+        Object[] row = transactionRepository.aggregateStatsByMerchant(
+                merchantId,
+                from != null ? from : MIN_DATE,
+                to != null ? to : MAX_DATE
+        ).get(0);
+
+        return new StatsDto(
+                (BigDecimal) row[3],
+                (BigDecimal) row[1],
+                ((Number) row[2]).longValue(),
+                clientsTotal
+        ).setTotalCredits((BigDecimal) row[0]);
+    }
+}
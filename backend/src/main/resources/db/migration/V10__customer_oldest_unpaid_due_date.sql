@@ -0,0 +1,23 @@
+-- Plus ancienne échéance impayée de chaque client, maintenue dans customer_balances :
+-- abaissée à la création d'un crédit, recalculée sur les crédits ouverts après chaque allocation.
+-- Les clients en retard se lisent alors par un parcours d'intervalle sur cette date.
+
+ALTER TABLE payflow.customer_balances
+    ADD COLUMN IF NOT EXISTS oldest_unpaid_due_date DATE;
+
+-- Reprise de l'existant (idempotente)
+UPDATE payflow.customer_balances b
+SET oldest_unpaid_due_date = o.due_date
+FROM (
+    SELECT t.customer_id, MIN(t.due_date) AS due_date
+    FROM payflow.transactions t
+    WHERE t.type = 'CREDIT'
+      AND t.remaining_amount > 0
+    GROUP BY t.customer_id
+) o
+WHERE o.customer_id = b.customer_id;
+
+-- Clients en retard d'un merchant (oldest_unpaid_due_date < aujourd'hui)
+CREATE INDEX IF NOT EXISTS idx_customer_balances_oldest_unpaid
+    ON payflow.customer_balances (merchant_id, oldest_unpaid_due_date)
+    WHERE oldest_unpaid_due_date IS NOT NULL;
@@ -0,0 +1,26 @@
+-- Balance âgée (GET /api/me/reports/aging).
+-- Tout crédit échu depuis plus de 90 jours tombe dans la tranche 90+ : seuls les crédits ouverts récents
+-- (échéance dans les 90 derniers jours, à venir ou absente) sont lus un par un ; la tranche 90+ se déduit
+-- du total ouvert de chaque client, maintenu dans customer_balances.
+
+-- Somme des remaining_amount des crédits du client : augmentée à la création d'un crédit,
+-- recalculée sur les crédits ouverts après chaque allocation (comme oldest_unpaid_due_date)
+ALTER TABLE payflow.customer_balances
+    ADD COLUMN IF NOT EXISTS open_credit_amount NUMERIC(18,2) NOT NULL DEFAULT 0;
+
+-- Reprise de l'existant (idempotente)
+UPDATE payflow.customer_balances b
+SET open_credit_amount = o.amount
+FROM (
+    SELECT t.customer_id, SUM(t.remaining_amount) AS amount
+    FROM payflow.transactions t
+    WHERE t.type = 'CREDIT'
+      AND t.remaining_amount > 0
+    GROUP BY t.customer_id
+) o
+WHERE o.customer_id = b.customer_id;
+
+-- Crédits ouverts d'un merchant par échéance, lus dans l'index seul (client et restant dû inclus)
+CREATE INDEX IF NOT EXISTS idx_transactions_open_credits_due
+    ON payflow.transactions (merchant_id, due_date) INCLUDE (customer_id, remaining_amount)
+    WHERE type = 'CREDIT' AND remaining_amount > 0;
@@ -0,0 +1,134 @@
+-- Schéma initial PayFlow (tel qu'il existait avant les migrations versionnées).
+-- Sur une base déjà créée à la main, Flyway la marque comme version 1 (baseline-on-migrate)
+-- sans rejouer ce script ; les migrations suivantes sont ré-exécutables.
+
+CREATE SCHEMA IF NOT EXISTS payflow;
+
+-- updated_at mis à jour par trigger sur chaque table qui en a un
+CREATE OR REPLACE FUNCTION payflow.set_updated_at() RETURNS trigger AS $$
+BEGIN
+    NEW.updated_at = now();
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TABLE payflow.merchants (
+    id            BIGSERIAL PRIMARY KEY,
+    name          VARCHAR(255) NOT NULL,
+    phone         VARCHAR(50)  NOT NULL UNIQUE,
+    email         VARCHAR(255) UNIQUE,
+    password_hash VARCHAR(255) NOT NULL,
+    created_at    TIMESTAMPTZ  NOT NULL DEFAULT now(),
+    updated_at    TIMESTAMPTZ  NOT NULL DEFAULT now()
+);
+
+CREATE TABLE payflow.customers (
+    id          BIGSERIAL PRIMARY KEY,
+    merchant_id BIGINT       NOT NULL REFERENCES payflow.merchants(id) ON DELETE CASCADE,
+    name        VARCHAR(255) NOT NULL,
+    phone       VARCHAR(50),
+    notes       TEXT,
+    created_at  TIMESTAMPTZ  NOT NULL DEFAULT now(),
+    updated_at  TIMESTAMPTZ  NOT NULL DEFAULT now(),
+    UNIQUE (merchant_id, phone)
+);
+
+CREATE TABLE payflow.transactions (
+    id               BIGSERIAL PRIMARY KEY,
+    merchant_id      BIGINT        NOT NULL REFERENCES payflow.merchants(id) ON DELETE CASCADE,
+    customer_id      BIGINT        NOT NULL REFERENCES payflow.customers(id) ON DELETE CASCADE,
+    type             VARCHAR(20)   NOT NULL CHECK (type IN ('CREDIT', 'PAYMENT')),
+    amount           NUMERIC(18,2) NOT NULL CHECK (amount > 0),
+    description      TEXT,
+    transaction_date DATE          NOT NULL DEFAULT CURRENT_DATE,
+    due_date         DATE,
+    payment_method   VARCHAR(100),
+    interest_rate    NUMERIC(5,2),
+    late_penalty     NUMERIC(18,2),
+    created_at       TIMESTAMPTZ   NOT NULL DEFAULT now(),
+    updated_at       TIMESTAMPTZ   NOT NULL DEFAULT now()
+);
+
+CREATE TABLE payflow.payment_allocations (
+    id               BIGSERIAL PRIMARY KEY,
+    merchant_id      BIGINT        NOT NULL REFERENCES payflow.merchants(id) ON DELETE CASCADE,
+    customer_id      BIGINT        NOT NULL REFERENCES payflow.customers(id) ON DELETE CASCADE,
+    payment_id       BIGINT        NOT NULL REFERENCES payflow.transactions(id) ON DELETE CASCADE,
+    credit_id        BIGINT        NOT NULL REFERENCES payflow.transactions(id) ON DELETE CASCADE,
+    allocated_amount NUMERIC(18,2) NOT NULL CHECK (allocated_amount > 0),
+    created_at       TIMESTAMPTZ   NOT NULL DEFAULT now()
+);
+
+CREATE TABLE payflow.notifications (
+    id          BIGSERIAL PRIMARY KEY,
+    merchant_id BIGINT       NOT NULL REFERENCES payflow.merchants(id) ON DELETE CASCADE,
+    customer_id BIGINT       REFERENCES payflow.customers(id) ON DELETE CASCADE,
+    title       VARCHAR(255) NOT NULL,
+    message     TEXT         NOT NULL,
+    read        BOOLEAN      NOT NULL DEFAULT false,
+    created_at  TIMESTAMPTZ  NOT NULL DEFAULT now()
+);
+
+CREATE TABLE payflow.notification_preferences (
+    id                BIGSERIAL PRIMARY KEY,
+    merchant_id       BIGINT      NOT NULL REFERENCES payflow.merchants(id) ON DELETE CASCADE,
+    customer_id       BIGINT      NOT NULL REFERENCES payflow.customers(id) ON DELETE CASCADE,
+    preferred_channel VARCHAR(20) NOT NULL DEFAULT 'IN_APP',
+    allow_in_app      BOOLEAN     NOT NULL DEFAULT true,
+    allow_sms         BOOLEAN     NOT NULL DEFAULT false,
+    allow_whatsapp    BOOLEAN     NOT NULL DEFAULT false,
+    allow_email       BOOLEAN     NOT NULL DEFAULT false,
+    created_at        TIMESTAMPTZ NOT NULL DEFAULT now(),
+    updated_at        TIMESTAMPTZ NOT NULL DEFAULT now(),
+    UNIQUE (merchant_id, customer_id)
+);
+
+CREATE TABLE payflow.outbound_notifications (
+    id            BIGSERIAL PRIMARY KEY,
+    merchant_id   BIGINT       NOT NULL REFERENCES payflow.merchants(id) ON DELETE CASCADE,
+    customer_id   BIGINT       REFERENCES payflow.customers(id) ON DELETE CASCADE,
+    channel       VARCHAR(20)  NOT NULL,
+    type          VARCHAR(50)  NOT NULL,
+    title         VARCHAR(255),
+    message       TEXT         NOT NULL,
+    status        VARCHAR(20)  NOT NULL DEFAULT 'PENDING',
+    error_message TEXT,
+    sent_at       TIMESTAMPTZ,
+    created_at    TIMESTAMPTZ  NOT NULL DEFAULT now(),
+    updated_at    TIMESTAMPTZ  NOT NULL DEFAULT now()
+);
+
+CREATE TABLE payflow.payment_reminders (
+    id             BIGSERIAL PRIMARY KEY,
+    merchant_id    BIGINT      NOT NULL REFERENCES payflow.merchants(id) ON DELETE CASCADE,
+    customer_id    BIGINT      NOT NULL REFERENCES payflow.customers(id) ON DELETE CASCADE,
+    due_date       DATE        NOT NULL,
+    reminder_level INTEGER     NOT NULL,
+    reminder_type  VARCHAR(20) NOT NULL,
+    sent_at        TIMESTAMPTZ NOT NULL DEFAULT now(),
+    UNIQUE (merchant_id, customer_id, due_date, reminder_level)
+);
+
+CREATE TABLE payflow.reminder_settings (
+    id                   BIGSERIAL PRIMARY KEY,
+    merchant_id          BIGINT      NOT NULL UNIQUE REFERENCES payflow.merchants(id) ON DELETE CASCADE,
+    due_soon_days_before INTEGER     NOT NULL DEFAULT 0,
+    overdue_days_1       INTEGER     NOT NULL DEFAULT 3,
+    overdue_days_2       INTEGER     NOT NULL DEFAULT 7,
+    enabled              BOOLEAN     NOT NULL DEFAULT true,
+    created_at           TIMESTAMPTZ NOT NULL DEFAULT now(),
+    updated_at           TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+CREATE TRIGGER trg_merchants_updated_at BEFORE UPDATE ON payflow.merchants
+    FOR EACH ROW EXECUTE FUNCTION payflow.set_updated_at();
+CREATE TRIGGER trg_customers_updated_at BEFORE UPDATE ON payflow.customers
+    FOR EACH ROW EXECUTE FUNCTION payflow.set_updated_at();
+CREATE TRIGGER trg_transactions_updated_at BEFORE UPDATE ON payflow.transactions
+    FOR EACH ROW EXECUTE FUNCTION payflow.set_updated_at();
+CREATE TRIGGER trg_notification_preferences_updated_at BEFORE UPDATE ON payflow.notification_preferences
+    FOR EACH ROW EXECUTE FUNCTION payflow.set_updated_at();
+CREATE TRIGGER trg_outbound_notifications_updated_at BEFORE UPDATE ON payflow.outbound_notifications
+    FOR EACH ROW EXECUTE FUNCTION payflow.set_updated_at();
+CREATE TRIGGER trg_reminder_settings_updated_at BEFORE UPDATE ON payflow.reminder_settings
+    FOR EACH ROW EXECUTE FUNCTION payflow.set_updated_at();
@@ -0,0 +1,27 @@
+-- Projection des soldes clients, maintenue par l'application à chaque transaction.
+-- Appliquée après V1__baseline_schema.sql (schéma initial).
+
+CREATE TABLE IF NOT EXISTS payflow.customer_balances (
+    customer_id    BIGINT PRIMARY KEY REFERENCES payflow.customers(id) ON DELETE CASCADE,
+    merchant_id    BIGINT NOT NULL REFERENCES payflow.merchants(id) ON DELETE CASCADE,
+    total_credits  NUMERIC(18,2) NOT NULL DEFAULT 0,
+    total_payments NUMERIC(18,2) NOT NULL DEFAULT 0,
+    balance        NUMERIC(18,2) GENERATED ALWAYS AS (total_credits - total_payments) STORED,
+    updated_at     TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS idx_customer_balances_merchant
+    ON payflow.customer_balances (merchant_id);
+
+-- Reprise de l'historique existant (idempotente)
+INSERT INTO payflow.customer_balances (customer_id, merchant_id, total_credits, total_payments)
+SELECT t.customer_id,
+       t.merchant_id,
+       COALESCE(SUM(t.amount) FILTER (WHERE t.type = 'CREDIT'), 0),
+       COALESCE(SUM(t.amount) FILTER (WHERE t.type = 'PAYMENT'), 0)
+FROM payflow.transactions t
+GROUP BY t.customer_id, t.merchant_id
+ON CONFLICT (customer_id) DO UPDATE
+   SET total_credits  = EXCLUDED.total_credits,
+       total_payments = EXCLUDED.total_payments,
+       updated_at     = now();
@@ -0,0 +1,26 @@
+-- Restant dû maintenu sur chaque crédit (montant - allocations).
+-- Permet de lister les crédits ouverts sans agréger payment_allocations à chaque lecture.
+
+ALTER TABLE payflow.transactions
+    ADD COLUMN IF NOT EXISTS remaining_amount NUMERIC(18,2);
+
+UPDATE payflow.transactions t
+SET remaining_amount = t.amount - COALESCE(a.allocated, 0)
+FROM (
+    SELECT c.id, SUM(pa.allocated_amount) AS allocated
+    FROM payflow.transactions c
+    LEFT JOIN payflow.payment_allocations pa ON pa.credit_id = c.id
+    WHERE c.type = 'CREDIT'
+    GROUP BY c.id
+) a
+WHERE a.id = t.id;
+
+ALTER TABLE payflow.transactions
+    DROP CONSTRAINT IF EXISTS chk_transactions_remaining_amount;
+ALTER TABLE payflow.transactions
+    ADD CONSTRAINT chk_transactions_remaining_amount CHECK (remaining_amount >= 0);
+
+-- Crédits encore ouverts d'un client, dans l'ordre d'affichage
+CREATE INDEX IF NOT EXISTS idx_transactions_open_credits
+    ON payflow.transactions (merchant_id, customer_id, due_date, transaction_date, id)
+    WHERE type = 'CREDIT' AND remaining_amount > 0;
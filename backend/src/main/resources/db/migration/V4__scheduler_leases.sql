@@ -0,0 +1,15 @@
+-- Baux (leases) des tâches planifiées : une ligne par job ou shard de job.
+-- Un nœud ne traite un job que s'il a pu poser le bail ou reprendre un bail expiré (un bail encore valide
+-- n'est jamais repris, même par son détenteur), ce qui permet de faire tourner plusieurs instances sans
+-- doubler le travail. Le détenteur prolonge son bail tant que le travail dure.
+
+CREATE TABLE IF NOT EXISTS payflow.scheduler_leases (
+    name         VARCHAR(100) PRIMARY KEY,
+    owner        VARCHAR(100) NOT NULL,
+    locked_until TIMESTAMPTZ  NOT NULL,
+    acquired_at  TIMESTAMPTZ  NOT NULL DEFAULT now()
+);
+
+-- Purge des baux journaliers des rappels (un par jour et par shard)
+CREATE INDEX IF NOT EXISTS idx_scheduler_leases_locked_until
+    ON payflow.scheduler_leases (locked_until);
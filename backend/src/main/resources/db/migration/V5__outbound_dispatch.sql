@@ -0,0 +1,17 @@
+-- Réservation des notifications sortantes par le dispatcher (FOR UPDATE SKIP LOCKED).
+-- Une ligne réservée passe en SENDING avec le nœud et l'heure de réservation ;
+-- une réservation trop ancienne (nœud tombé) est remise en PENDING.
+
+ALTER TABLE payflow.outbound_notifications
+    ADD COLUMN IF NOT EXISTS claimed_at TIMESTAMPTZ,
+    ADD COLUMN IF NOT EXISTS claimed_by VARCHAR(100);
+
+-- File d'attente par canal, dans l'ordre d'arrivée
+CREATE INDEX IF NOT EXISTS idx_outbound_pending
+    ON payflow.outbound_notifications (channel, created_at, id)
+    WHERE status = 'PENDING';
+
+-- Réservations en cours, pour la reprise des réservations abandonnées
+CREATE INDEX IF NOT EXISTS idx_outbound_sending
+    ON payflow.outbound_notifications (claimed_at)
+    WHERE status = 'SENDING';
@@ -0,0 +1,12 @@
+-- Reprises des notifications sortantes : nombre de tentatives et date de la prochaine.
+-- Un échec transitoire repasse en PENDING avec un délai exponentiel (avec jitter) ;
+-- un échec définitif ou trop de tentatives passent en DEAD_LETTER.
+
+ALTER TABLE payflow.outbound_notifications
+    ADD COLUMN IF NOT EXISTS attempt_count   INTEGER     NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS next_attempt_at TIMESTAMPTZ NOT NULL DEFAULT now();
+
+-- Le dispatcher ne lit que les lignes dont la prochaine tentative est échue
+DROP INDEX IF EXISTS payflow.idx_outbound_pending;
+CREATE INDEX IF NOT EXISTS idx_outbound_status_next_attempt
+    ON payflow.outbound_notifications (status, channel, next_attempt_at, id);
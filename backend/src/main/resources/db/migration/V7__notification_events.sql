@@ -0,0 +1,24 @@
+-- Signale chaque changement de notifications (création, lecture) sur le canal payflow_notifications,
+-- avec l'id du merchant concerné : les instances qui ont un flux SSE ouvert pour ce merchant
+-- lui poussent les nouveautés et le nombre de non lues, quel que soit le nœud qui a écrit.
+-- Trigger par instruction : un seul message par merchant, même pour une génération de masse.
+
+CREATE OR REPLACE FUNCTION payflow.notify_notification_changes() RETURNS trigger AS $$
+BEGIN
+    PERFORM pg_notify('payflow_notifications', m.merchant_id::text)
+    FROM (SELECT DISTINCT merchant_id FROM changed_rows) m;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_notifications_inserted ON payflow.notifications;
+CREATE TRIGGER trg_notifications_inserted
+    AFTER INSERT ON payflow.notifications
+    REFERENCING NEW TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION payflow.notify_notification_changes();
+
+DROP TRIGGER IF EXISTS trg_notifications_updated ON payflow.notifications;
+CREATE TRIGGER trg_notifications_updated
+    AFTER UPDATE ON payflow.notifications
+    REFERENCING NEW TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION payflow.notify_notification_changes();
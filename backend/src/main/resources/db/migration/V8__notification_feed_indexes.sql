@@ -0,0 +1,8 @@
+-- Fil des notifications d'un merchant, pagination par (created_at desc, id desc)
+CREATE INDEX IF NOT EXISTS idx_notifications_merchant_feed
+    ON payflow.notifications (merchant_id, created_at DESC, id DESC);
+
+-- Comptage des non lues (cloche) sans parcourir l'historique lu
+CREATE INDEX IF NOT EXISTS idx_notifications_merchant_unread
+    ON payflow.notifications (merchant_id)
+    WHERE read = false;
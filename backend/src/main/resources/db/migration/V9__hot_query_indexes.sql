@@ -0,0 +1,50 @@
+-- Index des requêtes chaudes : chaque index correspond à une forme de requête des repositories
+-- (vérifié par HotQueryIndexTest avec EXPLAIN).
+-- Déjà couverts par ailleurs :
+--   customers par merchant (findByMerchantId, countByMerchantId) : contrainte unique (merchant_id, phone)
+--   customer_balances par merchant : idx_customer_balances_merchant (V2)
+--   crédits ouverts d'un client et répartition des paiements : idx_transactions_open_credits (V3)
+--   fil et compteur des notifications : V8
+--   payment_reminders, notification_preferences, reminder_settings : contraintes uniques
+
+-- Transactions d'un client par type : soldes par client, sous-requêtes des clients en retard,
+-- transactions d'un client (findByMerchantIdAndCustomerId). amount inclus pour les sommes.
+CREATE INDEX IF NOT EXISTS idx_transactions_merchant_customer_type
+    ON payflow.transactions (merchant_id, customer_id, type) INCLUDE (amount);
+
+-- Pagination keyset (transaction_date desc, id desc), export, stats d'une période.
+-- customer_id, type et amount inclus : les stats d'une période se lisent dans l'index seul.
+CREATE INDEX IF NOT EXISTS idx_transactions_merchant_date
+    ON payflow.transactions (merchant_id, transaction_date DESC, id DESC) INCLUDE (customer_id, type, amount);
+
+-- Crédits par échéance : rappels du jour (due_date = J) et clients en retard (due_date < aujourd'hui)
+CREATE INDEX IF NOT EXISTS idx_transactions_credit_due
+    ON payflow.transactions (merchant_id, due_date, customer_id)
+    WHERE type = 'CREDIT';
+
+-- Clé étrangère customer_id : transactions d'un client (findByCustomerId) et suppression en cascade
+CREATE INDEX IF NOT EXISTS idx_transactions_customer
+    ON payflow.transactions (customer_id);
+
+-- Allocations d'un crédit (historique des paiements) et d'un paiement (reprise), suppressions en cascade
+CREATE INDEX IF NOT EXISTS idx_payment_allocations_credit
+    ON payflow.payment_allocations (credit_id);
+CREATE INDEX IF NOT EXISTS idx_payment_allocations_payment
+    ON payflow.payment_allocations (payment_id);
+-- Allocations d'un client (findByCustomerIdAndMerchantId)
+CREATE INDEX IF NOT EXISTS idx_payment_allocations_merchant_customer
+    ON payflow.payment_allocations (merchant_id, customer_id);
+
+-- Flux SSE : notifications d'un merchant postérieures à un id, et id max
+CREATE INDEX IF NOT EXISTS idx_notifications_merchant_id
+    ON payflow.notifications (merchant_id, id);
+
+-- Dispatcher : seules les lignes PENDING sont lues, l'index partiel ne grossit pas avec l'historique SENT
+DROP INDEX IF EXISTS payflow.idx_outbound_status_next_attempt;
+CREATE INDEX IF NOT EXISTS idx_outbound_pending_due
+    ON payflow.outbound_notifications (channel, next_attempt_at, id)
+    WHERE status = 'PENDING';
+-- Jauge de la file (payflow.outbound.backlog) : comptage par statut et canal, hors historique SENT
+CREATE INDEX IF NOT EXISTS idx_outbound_status_channel
+    ON payflow.outbound_notifications (status, channel)
+    WHERE status <> 'SENT';
@@ -0,0 +1,240 @@
+package com.project.payflow.repository;
+
+import com.project.payflow.service.AgingBucket;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+/**
+ * Balance âgée calculée par la base (CustomerBalanceRepository.findAgingByMerchant) comparée à
+ * AgingBucket.of appliqué crédit par crédit, sur un schéma créé par les migrations Flyway : échéances
+ * aux bornes 0/30/60/90 jours, crédits sans échéance, partiellement payés ou soldés. Ignoré sans Docker.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class AgingByMerchantTest {
+
+    private static final LocalDate AS_OF = LocalDate.of(2025, 6, 30);
+
+    @Container
+    static final PostgreSQLContainer postgres = new PostgreSQLContainer("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired CustomerBalanceRepository customerBalanceRepository;
+
+    private static JdbcTemplate jdbc;
+    private static long merchantId;
+    // Client qui n'a qu'un crédit, par écart en jours entre AS_OF et l'échéance (null : sans échéance)
+    private static final Map<Integer, Long> boundaryCustomers = new HashMap<>();
+    private static long mixedCustomerId;
+    private static long settledCustomerId;
+
+    @BeforeAll
+    static void migrateAndSeed() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        Flyway.configure()
+                .dataSource(dataSource)
+                .schemas("payflow")
+                .load()
+                .migrate();
+        jdbc = new JdbcTemplate(dataSource);
+
+        merchantId = jdbc.queryForObject("""
+                insert into payflow.merchants (name, phone, password_hash)
+                values ('Aging merchant', '+22501000001', '-')
+                returning id
+                """, Long.class);
+        // Un autre merchant aux mêmes échéances : ses crédits ne doivent jamais apparaître
+        long otherMerchantId = jdbc.queryForObject("""
+                insert into payflow.merchants (name, phone, password_hash)
+                values ('Other merchant', '+22501000002', '-')
+                returning id
+                """, Long.class);
+
+        for (Integer days : new Integer[]{-1, 0, 30, 31, 60, 61, 90, 91, null}) {
+            long customerId = customer(merchantId);
+            credit(merchantId, customerId, "100.00", "100.00", days);
+            boundaryCustomers.put(days, customerId);
+        }
+
+        // Toutes les bornes chez un même client, montants distincts, plus un crédit partiellement payé
+        // et un crédit soldé (ignoré)
+        mixedCustomerId = customer(merchantId);
+        credit(merchantId, mixedCustomerId, "1.00", "1.00", -1);
+        credit(merchantId, mixedCustomerId, "2.00", "2.00", 0);
+        credit(merchantId, mixedCustomerId, "4.00", "4.00", 30);
+        credit(merchantId, mixedCustomerId, "8.00", "8.00", 31);
+        credit(merchantId, mixedCustomerId, "16.00", "16.00", 60);
+        credit(merchantId, mixedCustomerId, "32.00", "32.00", 61);
+        credit(merchantId, mixedCustomerId, "64.00", "64.00", 90);
+        credit(merchantId, mixedCustomerId, "128.00", "128.00", 91);
+        credit(merchantId, mixedCustomerId, "256.00", "256.00", null);
+        credit(merchantId, mixedCustomerId, "1000.00", "512.00", 45);
+        credit(merchantId, mixedCustomerId, "300.00", "0.00", 10);
+        credit(merchantId, mixedCustomerId, "77.77", "77.77", 400);
+
+        // Tout est payé : pas de ligne dans la balance âgée
+        settledCustomerId = customer(merchantId);
+        credit(merchantId, settledCustomerId, "50.00", "0.00", 20);
+
+        long otherCustomerId = customer(otherMerchantId);
+        credit(otherMerchantId, otherCustomerId, "999.00", "999.00", 0);
+        credit(otherMerchantId, otherCustomerId, "999.00", "999.00", null);
+
+        // Projection customer_balances telle que maintenue par BalanceService
+        jdbc.update("""
+                insert into payflow.customer_balances
+                    (customer_id, merchant_id, total_credits, total_payments, open_credit_amount,
+                     oldest_unpaid_due_date)
+                select customer_id, merchant_id, sum(amount), 0,
+                       coalesce(sum(remaining_amount) filter (where remaining_amount > 0), 0),
+                       min(due_date) filter (where remaining_amount > 0)
+                from payflow.transactions
+                group by customer_id, merchant_id
+                """);
+        jdbc.execute("analyze");
+    }
+
+    // Chaque borne dans sa tranche attendue, la même pour la base et pour AgingBucket.of
+    static Stream<Arguments> boundaries() {
+        return Stream.of(
+                arguments(-1, AgingBucket.NOT_DUE),
+                arguments(0, AgingBucket.DAYS_0_30),
+                arguments(30, AgingBucket.DAYS_0_30),
+                arguments(31, AgingBucket.DAYS_31_60),
+                arguments(60, AgingBucket.DAYS_31_60),
+                arguments(61, AgingBucket.DAYS_61_90),
+                arguments(90, AgingBucket.DAYS_61_90),
+                arguments(91, AgingBucket.OVER_90),
+                arguments(null, AgingBucket.NOT_DUE)
+        );
+    }
+
+    @ParameterizedTest(name = "{0} jours -> {1}")
+    @MethodSource("boundaries")
+    void boundaryCreditFallsInItsBucket(Integer days, AgingBucket expected) {
+        assertThat(AgingBucket.of(dueDate(AS_OF, days), AS_OF)).isEqualTo(expected);
+
+        BigDecimal[] buckets = agingByCustomer(AS_OF).get(boundaryCustomers.get(days));
+
+        BigDecimal[] only = zeros();
+        only[expected.ordinal()] = new BigDecimal("100.00");
+        assertBuckets(buckets, only);
+    }
+
+    // Même comparaison à plusieurs dates : les crédits changent de tranche, les bornes aussi
+    @ParameterizedTest
+    @ValueSource(strings = {"2025-06-30", "2025-04-01", "2025-07-31", "2025-09-28", "2026-06-30"})
+    void matchesAgingBucketOfForEveryCustomer(String asOfValue) {
+        LocalDate asOf = LocalDate.parse(asOfValue);
+        Map<Long, BigDecimal[]> expected = new HashMap<>();
+        jdbc.query("""
+                select customer_id, due_date, remaining_amount
+                from payflow.transactions
+                where merchant_id = ? and type = 'CREDIT' and remaining_amount > 0
+                """, rs -> {
+            BigDecimal[] buckets = expected.computeIfAbsent(rs.getLong(1), id -> zeros());
+            int bucket = AgingBucket.of(rs.getObject(2, LocalDate.class), asOf).ordinal();
+            buckets[bucket] = buckets[bucket].add(rs.getBigDecimal(3));
+        }, merchantId);
+
+        Map<Long, BigDecimal[]> actual = agingByCustomer(asOf);
+
+        assertThat(actual.keySet()).containsExactlyInAnyOrderElementsOf(expected.keySet());
+        assertThat(actual).doesNotContainKey(settledCustomerId);
+        expected.forEach((customerId, buckets) -> assertBuckets(actual.get(customerId), buckets));
+    }
+
+    // Client mixte : seul le restant dû du crédit partiellement payé compte, le crédit soldé est ignoré
+    @Test
+    void mixedCustomerBuckets() {
+        BigDecimal[] buckets = agingByCustomer(AS_OF).get(mixedCustomerId);
+
+        assertBuckets(buckets, new BigDecimal[]{
+                new BigDecimal("257.00"),          // -1 jour, sans échéance
+                new BigDecimal("6.00"),            // 0, 30
+                new BigDecimal("536.00"),          // 31, 45 (restant 512), 60
+                new BigDecimal("96.00"),           // 61, 90
+                new BigDecimal("205.77")           // 91, 400
+        });
+    }
+
+    // [customer_id, name, not_due, 0-30, 31-60, 61-90, 90+, total] -> tranches dans l'ordre d'AgingBucket
+    private Map<Long, BigDecimal[]> agingByCustomer(LocalDate asOf) {
+        Map<Long, BigDecimal[]> byCustomer = new HashMap<>();
+        for (Object[] row : customerBalanceRepository.findAgingByMerchant(merchantId, asOf)) {
+            BigDecimal[] buckets = Arrays.copyOfRange(row, 2, 7, BigDecimal[].class);
+            // Le total est la somme des tranches
+            assertThat(Arrays.stream(buckets).reduce(BigDecimal.ZERO, BigDecimal::add))
+                    .isEqualByComparingTo((BigDecimal) row[7]);
+            byCustomer.put(((Number) row[0]).longValue(), buckets);
+        }
+        return byCustomer;
+    }
+
+    private static void assertBuckets(BigDecimal[] actual, BigDecimal[] expected) {
+        assertThat(actual).isNotNull();
+        for (AgingBucket bucket : AgingBucket.values()) {
+            assertThat(actual[bucket.ordinal()]).as(bucket.name()).isEqualByComparingTo(expected[bucket.ordinal()]);
+        }
+    }
+
+    private static BigDecimal[] zeros() {
+        BigDecimal[] buckets = new BigDecimal[AgingBucket.values().length];
+        Arrays.fill(buckets, BigDecimal.ZERO);
+        return buckets;
+    }
+
+    private static LocalDate dueDate(LocalDate asOf, Integer days) {
+        return days != null ? asOf.minusDays(days) : null;
+    }
+
+    private static long customer(long merchantId) {
+        return jdbc.queryForObject("""
+                insert into payflow.customers (merchant_id, name, phone)
+                values (?, 'Client', ?)
+                returning id
+                """, Long.class, merchantId, "+22507" + System.nanoTime());
+    }
+
+    // Crédit échu depuis days jours au 30/06/2025 (days < 0 : échéance à venir, null : sans échéance)
+    private static void credit(long merchantId, long customerId, String amount, String remaining, Integer days) {
+        jdbc.update("""
+                insert into payflow.transactions
+                    (merchant_id, customer_id, type, amount, transaction_date, due_date, remaining_amount)
+                values (?, ?, 'CREDIT', ?, date '2025-01-01', ?, ?)
+                """, merchantId, customerId, new BigDecimal(amount), dueDate(AS_OF, days), new BigDecimal(remaining));
+    }
+}
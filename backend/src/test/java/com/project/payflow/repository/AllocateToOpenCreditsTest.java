@@ -0,0 +1,201 @@
+package com.project.payflow.repository;
+
+import com.project.payflow.service.AllocationStrategy;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+/**
+ * Répartition automatique d'un paiement (TransactionRepositoryImpl.allocateToOpenCredits) sur un schéma
+ * créé par les migrations Flyway, pour chaque AllocationStrategy. Après chaque répartition, le restant dû
+ * de chaque crédit doit être son montant moins ses allocations. Ignoré sans Docker.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class AllocateToOpenCreditsTest {
+
+    @Container
+    static final PostgreSQLContainer postgres = new PostgreSQLContainer("postgres:16-alpine");
+
+    private static JdbcTemplate jdbc;
+    private static TransactionRepositoryImpl repository;
+    private static long merchantId;
+
+    private long customerId;
+    // Crédits du client courant, par nom (voir createCredits)
+    private final Map<String, Long> credits = new HashMap<>();
+
+    @BeforeAll
+    static void migrate() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        Flyway.configure()
+                .dataSource(dataSource)
+                .schemas("payflow")
+                .load()
+                .migrate();
+        jdbc = new JdbcTemplate(dataSource);
+        repository = new TransactionRepositoryImpl(jdbc);
+        merchantId = jdbc.queryForObject("""
+                insert into payflow.merchants (name, phone, password_hash)
+                values ('Allocation merchant', '+22501000001', '-')
+                returning id
+                """, Long.class);
+    }
+
+    @BeforeEach
+    void createCustomer() {
+        customerId = jdbc.queryForObject("""
+                insert into payflow.customers (merchant_id, name, phone)
+                values (?, 'Client', ?)
+                returning id
+                """, Long.class, merchantId, "+22507" + System.nanoTime());
+    }
+
+    @AfterEach
+    void remainingMatchesAllocations() {
+        // Restant dû = montant - somme des allocations, pour chaque crédit du client
+        List<Map<String, Object>> mismatches = jdbc.queryForList("""
+                select t.id, t.amount, t.remaining_amount, coalesce(sum(pa.allocated_amount), 0) as allocated
+                from payflow.transactions t
+                left join payflow.payment_allocations pa on pa.credit_id = t.id
+                where t.customer_id = ? and t.type = 'CREDIT'
+                group by t.id
+                having t.remaining_amount <> t.amount - coalesce(sum(pa.allocated_amount), 0)
+                """, customerId);
+        assertThat(mismatches).isEmpty();
+        credits.clear();
+    }
+
+    // Chaque stratégie avec la répartition attendue d'un paiement de 150 (le dernier crédit touché est partiel)
+    static Stream<Arguments> partialLastCredit() {
+        return Stream.of(
+                arguments(AllocationStrategy.DUE_DATE, Map.of("feb", "80", "mar", "70")),
+                arguments(AllocationStrategy.OLDEST_FIRST, Map.of("noDue", "40", "apr", "50", "mar", "60")),
+                arguments(AllocationStrategy.HIGHEST_PENALTY_FIRST, Map.of("apr", "50", "feb", "80", "mar", "20"))
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("partialLastCredit")
+    void allocatesInStrategyOrderAndStopsOnAPartialCredit(AllocationStrategy strategy, Map<String, String> expected) {
+        createCredits();
+        long paymentId = createPayment("150");
+
+        BigDecimal allocated = repository.allocateToOpenCredits(
+                merchantId, customerId, paymentId, new BigDecimal("150"), strategy);
+
+        assertThat(allocated).isEqualByComparingTo("150");
+        Map<Long, BigDecimal> byCredit = allocationsOf(paymentId);
+        assertThat(byCredit).hasSize(expected.size());
+        expected.forEach((credit, amount) ->
+                assertThat(byCredit.get(credits.get(credit))).as(credit).isEqualByComparingTo(amount));
+    }
+
+    @ParameterizedTest
+    @EnumSource(AllocationStrategy.class)
+    void paymentLargerThanOpenTotalSettlesEveryCredit(AllocationStrategy strategy) {
+        createCredits();
+        long paymentId = createPayment("1000");
+
+        BigDecimal allocated = repository.allocateToOpenCredits(
+                merchantId, customerId, paymentId, new BigDecimal("1000"), strategy);
+
+        // Seul le total ouvert (100 + 50 + 80 + 40) est affecté, le reste du paiement reste une avance
+        assertThat(allocated).isEqualByComparingTo("270");
+        assertThat(allocationsOf(paymentId)).hasSize(4);
+        assertThat(openTotal()).isEqualByComparingTo("0");
+    }
+
+    @ParameterizedTest
+    @EnumSource(AllocationStrategy.class)
+    void nothingToAllocateWithoutOpenCredits(AllocationStrategy strategy) {
+        long paymentId = createPayment("50");
+
+        BigDecimal allocated = repository.allocateToOpenCredits(
+                merchantId, customerId, paymentId, new BigDecimal("50"), strategy);
+
+        assertThat(allocated).isEqualByComparingTo("0");
+        assertThat(allocationsOf(paymentId)).isEmpty();
+    }
+
+    @ParameterizedTest
+    @EnumSource(AllocationStrategy.class)
+    void secondPaymentContinuesFromTheRemainingAmounts(AllocationStrategy strategy) {
+        createCredits();
+        long first = createPayment("150");
+        long second = createPayment("150");
+
+        repository.allocateToOpenCredits(merchantId, customerId, first, new BigDecimal("150"), strategy);
+        BigDecimal allocated = repository.allocateToOpenCredits(
+                merchantId, customerId, second, new BigDecimal("150"), strategy);
+
+        assertThat(allocated).isEqualByComparingTo("120");
+        assertThat(openTotal()).isEqualByComparingTo("0");
+    }
+
+    // Ordres attendus : DUE_DATE feb, mar, apr, noDue ; OLDEST_FIRST noDue, apr, mar, feb ;
+    // HIGHEST_PENALTY_FIRST apr (500), feb (100), mar (0, échéance), noDue (sans pénalité ni échéance)
+    private void createCredits() {
+        credits.put("mar", createCredit("100", "2025-01-10", "2025-03-01", "0"));
+        credits.put("apr", createCredit("50", "2025-01-01", "2025-04-01", "500"));
+        credits.put("feb", createCredit("80", "2025-02-01", "2025-02-15", "100"));
+        credits.put("noDue", createCredit("40", "2024-12-01", null, null));
+    }
+
+    private long createCredit(String amount, String date, String dueDate, String latePenalty) {
+        return jdbc.queryForObject("""
+                insert into payflow.transactions
+                    (merchant_id, customer_id, type, amount, transaction_date, due_date, late_penalty, remaining_amount)
+                values (?, ?, 'CREDIT', ?, ?, ?, ?, ?)
+                returning id
+                """, Long.class,
+                merchantId, customerId, new BigDecimal(amount), LocalDate.parse(date),
+                dueDate != null ? LocalDate.parse(dueDate) : null,
+                latePenalty != null ? new BigDecimal(latePenalty) : null,
+                new BigDecimal(amount));
+    }
+
+    private long createPayment(String amount) {
+        return jdbc.queryForObject("""
+                insert into payflow.transactions (merchant_id, customer_id, type, amount, transaction_date)
+                values (?, ?, 'PAYMENT', ?, date '2025-05-01')
+                returning id
+                """, Long.class, merchantId, customerId, new BigDecimal(amount));
+    }
+
+    private Map<Long, BigDecimal> allocationsOf(long paymentId) {
+        Map<Long, BigDecimal> byCredit = new HashMap<>();
+        jdbc.query("select credit_id, allocated_amount from payflow.payment_allocations where payment_id = ?",
+                rs -> {
+                    byCredit.merge(rs.getLong(1), rs.getBigDecimal(2), BigDecimal::add);
+                }, paymentId);
+        return byCredit;
+    }
+
+    private BigDecimal openTotal() {
+        return jdbc.queryForObject("""
+                select coalesce(sum(remaining_amount), 0) from payflow.transactions
+                where customer_id = ? and type = 'CREDIT'
+                """, BigDecimal.class, customerId);
+    }
+}
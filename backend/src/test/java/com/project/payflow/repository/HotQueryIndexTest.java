@@ -0,0 +1,382 @@
+package com.project.payflow.repository;
+
+import com.project.payflow.entities.Transaction;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.jpa.test.autoconfigure.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+/**
+ * Plans d'exécution des requêtes chaudes des repositories sur un schéma créé par les migrations
+ * Flyway et un volume de données réaliste : chaque requête doit passer par l'index prévu
+ * (V9__hot_query_indexes.sql et suivantes), sans parcours séquentiel. Ignoré sans Docker.
+ *
+ * Chaque cas appelle la vraie méthode du repository (JPQL, native ou JdbcTemplate) : le plan est
+ * celui du SQL envoyé à Postgres avec ses paramètres, jamais une copie de la requête.
+ * Chaque test est annulé en fin de transaction (claimBatch, insertRemindersForDueDate...).
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class HotQueryIndexTest {
+
+    @Container
+    static final PostgreSQLContainer postgres = new PostgreSQLContainer("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired TransactionRepository transactionRepository;
+    @Autowired PaymentReminderRepository paymentReminderRepository;
+    @Autowired PaymentAllocationRepository paymentAllocationRepository;
+    @Autowired CustomerRepository customerRepository;
+    @Autowired CustomerBalanceRepository customerBalanceRepository;
+    @Autowired NotificationRepository notificationRepository;
+    @Autowired OutboundNotificationRepository outboundNotificationRepository;
+    @Autowired TestEntityManager entityManager;
+
+    private static JdbcTemplate jdbc;
+    private static long merchantId;
+    private static long customerId;
+    private static long creditId;
+    private static long paymentId;
+
+    @BeforeAll
+    static void migrateAndSeed() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        Flyway.configure()
+                .dataSource(dataSource)
+                .schemas("payflow")
+                .load()
+                .migrate();
+        jdbc = new JdbcTemplate(dataSource);
+        seed();
+        jdbc.execute("analyze");
+
+        merchantId = 42;
+        customerId = jdbc.queryForObject(
+                "select min(id) from payflow.customers where merchant_id = ?", Long.class, merchantId);
+        creditId = jdbc.queryForObject(
+                "select min(id) from payflow.transactions where customer_id = ? and type = 'CREDIT'", Long.class, customerId);
+        paymentId = jdbc.queryForObject(
+                "select min(id) from payflow.transactions where customer_id = ? and type = 'PAYMENT'", Long.class, customerId);
+    }
+
+    // 100 merchants x 50 clients x 20 transactions, avec allocations, notifications, préférences et file sortante
+    private static void seed() {
+        jdbc.update("""
+                insert into payflow.merchants (name, phone, password_hash)
+                select 'Merchant ' || m, '+22501' || lpad(m::text, 6, '0'), '-'
+                from generate_series(1, 100) m
+                """);
+        jdbc.update("""
+                insert into payflow.customers (merchant_id, name, phone)
+                select m.id, 'Client ' || c, '+22507' || lpad(c::text, 6, '0')
+                from payflow.merchants m, generate_series(1, 50) c
+                """);
+        jdbc.update("""
+                insert into payflow.transactions
+                    (merchant_id, customer_id, type, amount, transaction_date, due_date, remaining_amount)
+                select c.merchant_id, c.id,
+                       case when g % 3 = 0 then 'PAYMENT' else 'CREDIT' end,
+                       10 + (c.id * 7 + g * 13) % 1000,
+                       date '2025-01-01' + ((c.id * 7 + g * 13) % 365)::int,
+                       case when g % 3 = 0 then null else date '2025-01-01' + ((c.id * 7 + g * 13) % 365)::int + 30 end,
+                       case when g % 3 = 0 then null when g % 2 = 0 then 10 + (c.id * 7 + g * 13) % 1000 else 0 end
+                from payflow.customers c, generate_series(1, 20) g
+                """);
+        jdbc.update("""
+                insert into payflow.customer_balances
+                    (customer_id, merchant_id, total_credits, total_payments, oldest_unpaid_due_date,
+                     open_credit_amount)
+                select customer_id, merchant_id,
+                       coalesce(sum(amount) filter (where type = 'CREDIT'), 0),
+                       coalesce(sum(amount) filter (where type = 'PAYMENT'), 0),
+                       min(due_date) filter (where type = 'CREDIT' and remaining_amount > 0),
+                       coalesce(sum(remaining_amount) filter (where type = 'CREDIT'), 0)
+                from payflow.transactions
+                group by customer_id, merchant_id
+                """);
+        // Sans statistiques, la sous-requête ci-dessous parcourt toute la table pour chaque paiement
+        jdbc.execute("analyze payflow.transactions");
+        jdbc.update("""
+                insert into payflow.payment_allocations (merchant_id, customer_id, payment_id, credit_id, allocated_amount)
+                select p.merchant_id, p.customer_id, p.id,
+                       (select min(c.id) from payflow.transactions c
+                        where c.customer_id = p.customer_id and c.type = 'CREDIT'),
+                       1
+                from payflow.transactions p
+                where p.type = 'PAYMENT'
+                """);
+        jdbc.update("""
+                insert into payflow.notifications (merchant_id, customer_id, title, message, read, created_at)
+                select c.merchant_id, c.id, 'Rappel', 'Message ' || g, g % 4 <> 0,
+                       timestamptz '2025-01-01' + (c.id * 7 + g) * interval '1 hour'
+                from payflow.customers c, generate_series(1, 4) g
+                """);
+        // Préférences de notification pour un client sur deux
+        jdbc.update("""
+                insert into payflow.notification_preferences
+                    (merchant_id, customer_id, preferred_channel, allow_in_app, allow_sms, allow_whatsapp, allow_email)
+                select c.merchant_id, c.id, 'SMS', true, true, false, false
+                from payflow.customers c
+                where c.id % 2 = 0
+                """);
+        // File sortante : 10 % en attente (échéances étalées sur 24 h), quelques réservations en cours
+        jdbc.update("""
+                insert into payflow.outbound_notifications
+                    (merchant_id, customer_id, channel, type, message, status, next_attempt_at, claimed_at)
+                select o.merchant_id, o.customer_id, o.channel, 'REMINDER', 'Message ' || o.k,
+                       case when o.k % 10 = 0 then 'PENDING'
+                            when o.k % 50 = 1 then 'SENDING'
+                            when o.k % 250 = 3 then 'DEAD_LETTER'
+                            else 'SENT' end,
+                       now() + interval '6 hours' - (o.k % 1440) * interval '1 minute',
+                       case when o.k % 50 = 1 then now() - (o.k % 600) * interval '1 second' end
+                from (select c.merchant_id, c.id as customer_id, c.id * 4 + g as k,
+                             case when (c.id + g) % 2 = 0 then 'SMS' else 'IN_APP' end as channel
+                      from payflow.customers c, generate_series(1, 4) g) o
+                """);
+    }
+
+    static Stream<Arguments> hotQueries() {
+        return Stream.of(
+                hotQuery("TransactionRepository.findPageByMerchant",
+                        t -> t.transactionRepository.findPageByMerchant(merchantId, LocalDate.of(2025, 1, 1),
+                                LocalDate.of(2025, 12, 31), Long.MAX_VALUE, Limit.of(50)),
+                        "idx_transactions_merchant_date"),
+                hotQuery("TransactionRepository.aggregateStatsByMerchant",
+                        t -> t.transactionRepository.aggregateStatsByMerchant(merchantId,
+                                LocalDate.of(2025, 3, 1), LocalDate.of(2025, 6, 1)),
+                        "idx_transactions_merchant_date"),
+                hotQuery("TransactionRepository.findByMerchantIdAndCustomerId",
+                        t -> t.transactionRepository.findByMerchantIdAndCustomerId(merchantId, customerId),
+                        "idx_transactions_merchant_customer_type"),
+                hotQuery("TransactionRepository.findByCustomerId",
+                        t -> t.transactionRepository.findByCustomerId(customerId),
+                        "idx_transactions_customer"),
+                hotQuery("TransactionRepository.findOpenCreditsByMerchantAndCustomer",
+                        t -> t.transactionRepository.findOpenCreditsByMerchantAndCustomer(merchantId, customerId),
+                        "idx_transactions_open_credits"),
+                hotQuery("PaymentReminderRepository.insertRemindersForDueDate",
+                        t -> t.paymentReminderRepository.insertRemindersForDueDate(merchantId,
+                                LocalDate.of(2025, 4, 15), 1, "DUE_SOON", "Paiement à échéance",
+                                " arrive à échéance le "),
+                        "idx_transactions_credit_due"),
+                hotQuery("PaymentAllocationRepository.findByCredit",
+                        t -> t.paymentAllocationRepository.findByCredit(
+                                t.entityManager.getEntityManager().getReference(Transaction.class, creditId)),
+                        "idx_payment_allocations_credit"),
+                hotQuery("PaymentAllocationRepository.findByPayment",
+                        t -> t.paymentAllocationRepository.findByPayment(
+                                t.entityManager.getEntityManager().getReference(Transaction.class, paymentId)),
+                        "idx_payment_allocations_payment"),
+                hotQuery("PaymentAllocationRepository.findByCustomerIdAndMerchantId",
+                        t -> t.paymentAllocationRepository.findByCustomerIdAndMerchantId(customerId, merchantId),
+                        "idx_payment_allocations_merchant_customer"),
+                hotQuery("CustomerRepository.findByMerchantId",
+                        t -> t.customerRepository.findByMerchantId(merchantId),
+                        "customers_merchant_id_phone_key"),
+                hotQuery("CustomerBalanceRepository.findByMerchantId",
+                        t -> t.customerBalanceRepository.findByMerchantId(merchantId),
+                        "idx_customer_balances_merchant"),
+                // Sous-requête corrélée du montant en retard ; tous les clients générés sont en retard,
+                // leurs soldes sont donc lus par l'index du merchant
+                hotQuery("CustomerBalanceRepository.findOverdueByMerchant",
+                        t -> t.customerBalanceRepository.findOverdueByMerchant(merchantId),
+                        "idx_transactions_open_credits"),
+                // Les deux branches de l'UNION (crédits récents, crédits sans échéance)
+                hotQuery("CustomerBalanceRepository.findAgingByMerchant",
+                        t -> t.customerBalanceRepository.findAgingByMerchant(merchantId, LocalDate.of(2025, 12, 1)),
+                        "idx_transactions_open_credits_due"),
+                hotQuery("NotificationRepository.findPageByMerchant",
+                        t -> t.notificationRepository.findPageByMerchant(merchantId,
+                                OffsetDateTime.parse("2030-01-01T00:00:00Z"), Long.MAX_VALUE, Limit.of(50)),
+                        "idx_notifications_merchant_feed"),
+                hotQuery("NotificationRepository.countByMerchantIdAndReadFalse",
+                        t -> t.notificationRepository.countByMerchantIdAndReadFalse(merchantId),
+                        "idx_notifications_merchant_unread"),
+                hotQuery("NotificationRepository.findByMerchantIdAndIdGreaterThanOrderByIdAsc",
+                        t -> t.notificationRepository.findByMerchantIdAndIdGreaterThanOrderByIdAsc(
+                                merchantId, 1000L, Limit.of(100)),
+                        "idx_notifications_merchant_id"),
+                hotQuery("OutboundNotificationRepository.claimBatch",
+                        t -> t.outboundNotificationRepository.claimBatch("SMS", 100, "test"),
+                        "idx_outbound_pending_due"),
+                hotQuery("OutboundNotificationRepository.countByStatusAndChannel",
+                        t -> t.outboundNotificationRepository.countByStatusAndChannel(
+                                List.of("PENDING", "SENDING", "FAILED", "DEAD_LETTER")),
+                        "idx_outbound_status_channel"),
+                hotQuery("OutboundNotificationRepository.releaseStaleClaims",
+                        t -> t.outboundNotificationRepository.releaseStaleClaims(Duration.ofMinutes(5)),
+                        "idx_outbound_sending")
+        );
+    }
+
+    private static Arguments hotQuery(String name, Consumer<HotQueryIndexTest> call, String... expectedIndexes) {
+        return arguments(name, call, List.of(expectedIndexes));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("hotQueries")
+    void hotQueryUsesItsIndex(String query, Consumer<HotQueryIndexTest> call, List<String> expectedIndexes) {
+        List<String> plans = ExplainingDataSource.explain(() -> call.accept(this));
+
+        // Première requête envoyée par la méthode : la requête elle-même (les suivantes chargent des associations)
+        assertThat(plans).as("requêtes de %s", query).isNotEmpty();
+        String plan = plans.getFirst();
+        assertThat(plan)
+                .as("plan de %s :%n%s", query, plan)
+                .contains(expectedIndexes)
+                .doesNotContain("Seq Scan");
+    }
+
+    @TestConfiguration
+    static class ExplainConfig {
+
+        @Bean
+        static BeanPostProcessor explainingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource && !(bean instanceof ExplainingDataSource)
+                            ? new ExplainingDataSource(dataSource)
+                            : bean;
+                }
+            };
+        }
+    }
+
+    /**
+     * DataSource qui, pendant explain(...), fait précéder chaque requête préparée d'un EXPLAIN
+     * avec le même SQL et les mêmes paramètres : le plan est celui de la requête réellement envoyée.
+     */
+    static class ExplainingDataSource extends DelegatingDataSource {
+
+        private static final List<String> plans = new ArrayList<>();
+        private static volatile boolean explaining;
+
+        ExplainingDataSource(DataSource target) {
+            super(target);
+        }
+
+        static synchronized List<String> explain(Runnable call) {
+            plans.clear();
+            explaining = true;
+            try {
+                call.run();
+            } finally {
+                explaining = false;
+            }
+            return List.copyOf(plans);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return explaining(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return explaining(super.getConnection(username, password));
+        }
+
+        private static Connection explaining(Connection connection) {
+            return proxy(Connection.class, (proxy, method, args) -> {
+                Object result = invoke(connection, method, args);
+                if (method.getName().equals("prepareStatement") && args[0] instanceof String sql) {
+                    return explaining(connection, sql, (PreparedStatement) result);
+                }
+                return result;
+            });
+        }
+
+        private static PreparedStatement explaining(Connection connection, String sql, PreparedStatement statement) {
+            // Paramètres liés (setLong, setObject...) rejoués sur l'EXPLAIN
+            Map<Integer, Object[]> parameters = new TreeMap<>();
+            Map<Integer, Method> setters = new HashMap<>();
+            return proxy(PreparedStatement.class, (proxy, method, args) -> {
+                String name = method.getName();
+                if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                    parameters.put(index, args);
+                    setters.put(index, method);
+                } else if (name.equals("clearParameters")) {
+                    parameters.clear();
+                    setters.clear();
+                } else if (explaining && name.startsWith("execute") && !name.equals("executeBatch")
+                        && (args == null || args.length == 0)) {
+                    try (PreparedStatement explain = connection.prepareStatement("explain " + sql)) {
+                        for (Map.Entry<Integer, Object[]> parameter : parameters.entrySet()) {
+                            invoke(explain, setters.get(parameter.getKey()), parameter.getValue());
+                        }
+                        try (ResultSet rs = explain.executeQuery()) {
+                            StringBuilder plan = new StringBuilder();
+                            while (rs.next()) {
+                                plan.append(rs.getString(1)).append('\n');
+                            }
+                            plans.add(plan.toString());
+                        }
+                    }
+                }
+                return invoke(statement, method, args);
+            });
+        }
+
+        private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, handler));
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.project.payflow.service;
+
+import com.project.payflow.controller.TransactionController;
+import com.project.payflow.dto.CreateTransactionRequest;
+import com.project.payflow.dto.PaymentAllocationRequest;
+import com.project.payflow.dto.TransactionDto;
+import com.project.payflow.entities.Merchant;
+import com.project.payflow.entities.TransactionType;
+import com.project.payflow.repository.MerchantRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Projection customer_balances (oldest_unpaid_due_date, open_credit_amount) après chaque façon d'affecter
+ * un paiement : allocations explicites et répartition automatique (POST /api/me/transactions), reprise
+ * des paiements historiques (backfill). Schedulers et flux SSE coupés. Ignoré sans Docker.
+ */
+@SpringBootTest(properties = {
+        "management.server.port=-1",
+        "spring.jpa.show-sql=false",
+        "payflow.reminders.cron=-",
+        "payflow.delivery.poll-interval=PT24H",
+        "payflow.metrics.backlog-refresh=PT24H",
+        "payflow.notifications.stream.enabled=false"
+})
+@Testcontainers(disabledWithoutDocker = true)
+class OldestUnpaidDueDateTest {
+
+    @Container
+    static final PostgreSQLContainer postgres = new PostgreSQLContainer("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired TransactionController transactionController;
+    @Autowired PaymentAllocationService paymentAllocationService;
+    @Autowired MerchantRepository merchantRepository;
+    @Autowired JdbcTemplate jdbc;
+
+    private Merchant merchant;
+    private long customerId;
+
+    @BeforeEach
+    void signIn() {
+        long merchantId = jdbc.queryForObject("""
+                insert into payflow.merchants (name, phone, password_hash)
+                values ('Balance merchant', ?, '-')
+                returning id
+                """, Long.class, "+22501" + System.nanoTime());
+        customerId = jdbc.queryForObject("""
+                insert into payflow.customers (merchant_id, name, phone)
+                values (?, 'Client', '+22507000001')
+                returning id
+                """, Long.class, merchantId);
+        merchant = merchantRepository.findById(merchantId).orElseThrow();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(merchant, null, List.of()));
+    }
+
+    @AfterEach
+    void signOut() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void explicitAllocationsMoveTheOldestDueDateForward() {
+        long february = credit("100", "2025-02-01");
+        long march = credit("50", "2025-03-01");
+        assertBalance("2025-02-01", "150");
+
+        payment("100", Map.of(february, "100"));
+        assertBalance("2025-03-01", "50");
+
+        // Un crédit partiellement payé reste ouvert
+        payment("20", Map.of(march, "20"));
+        assertBalance("2025-03-01", "30");
+
+        payment("30", Map.of(march, "30"));
+        assertBalance(null, "0");
+    }
+
+    @Test
+    void automaticAllocationMovesTheOldestDueDateForward() {
+        credit("100", "2025-02-01");
+        credit("50", "2025-03-01");
+        credit("30", null);
+        assertBalance("2025-02-01", "180");
+
+        // DUE_DATE : février soldé, mars entamé
+        payment("120", Map.of());
+        assertBalance("2025-03-01", "60");
+
+        // Reste un crédit sans échéance : plus de date impayée
+        payment("30", Map.of());
+        assertBalance(null, "30");
+    }
+
+    @Test
+    void backfillMovesTheOldestDueDateForward() {
+        credit("100", "2025-02-01");
+        credit("50", "2025-03-01");
+        historicPayment("120");
+        assertBalance("2025-02-01", "150");
+
+        int payments = paymentAllocationService.backfillUnallocatedPayments(merchant.getId(), AllocationStrategy.DUE_DATE);
+
+        assertThat(payments).isEqualTo(1);
+        assertBalance("2025-03-01", "30");
+
+        // Rien à reprendre au second passage
+        assertThat(paymentAllocationService.backfillUnallocatedPayments(merchant.getId(), AllocationStrategy.DUE_DATE))
+                .isZero();
+        assertBalance("2025-03-01", "30");
+    }
+
+    private long credit(String amount, String dueDate) {
+        TransactionDto created = transactionController.create(new CreateTransactionRequest()
+                .setCustomerId(customerId)
+                .setType(TransactionType.CREDIT)
+                .setAmount(new BigDecimal(amount))
+                .setTransactionDate(LocalDate.of(2025, 1, 15))
+                .setDueDate(dueDate != null ? LocalDate.parse(dueDate) : null));
+        return created.getId();
+    }
+
+    // Sans allocations : répartition automatique (payflow.allocation.auto=true par défaut)
+    private void payment(String amount, Map<Long, String> allocations) {
+        transactionController.create(new CreateTransactionRequest()
+                .setCustomerId(customerId)
+                .setType(TransactionType.PAYMENT)
+                .setAmount(new BigDecimal(amount))
+                .setTransactionDate(LocalDate.of(2025, 4, 1))
+                .setAllocations(allocations.entrySet().stream()
+                        .map(e -> new PaymentAllocationRequest()
+                                .setCreditId(e.getKey())
+                                .setAmount(new BigDecimal(e.getValue())))
+                        .toList()));
+    }
+
+    // Paiement antérieur à la répartition automatique : en base, compté dans le solde, sans allocation
+    private void historicPayment(String amount) {
+        jdbc.update("""
+                insert into payflow.transactions (merchant_id, customer_id, type, amount, transaction_date)
+                values (?, ?, 'PAYMENT', ?, date '2025-04-01')
+                """, merchant.getId(), customerId, new BigDecimal(amount));
+        jdbc.update("""
+                update payflow.customer_balances set total_payments = total_payments + ? where customer_id = ?
+                """, new BigDecimal(amount), customerId);
+    }
+
+    private void assertBalance(String oldestUnpaidDueDate, String openCreditAmount) {
+        LocalDate oldest = jdbc.queryForObject(
+                "select oldest_unpaid_due_date from payflow.customer_balances where customer_id = ?",
+                LocalDate.class, customerId);
+        BigDecimal open = jdbc.queryForObject(
+                "select open_credit_amount from payflow.customer_balances where customer_id = ?",
+                BigDecimal.class, customerId);
+        assertThat(oldest).isEqualTo(oldestUnpaidDueDate != null ? LocalDate.parse(oldestUnpaidDueDate) : null);
+        assertThat(open).isEqualByComparingTo(openCreditAmount);
+    }
+}
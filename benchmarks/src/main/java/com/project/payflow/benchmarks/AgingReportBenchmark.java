@@ -0,0 +1,49 @@
+package com.project.payflow.benchmarks;
+
+import com.project.payflow.dto.AgingCustomerReportDto;
+import com.project.payflow.dto.AgingReportDto;
+import com.project.payflow.entities.Customer;
+import com.project.payflow.service.AgingReportService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Balance âgée (GET /api/me/reports/aging) : rapport du merchant et détail d'un client.
+ * Objectif : moins de 100 ms pour un merchant de 500k crédits (-p transactions=750000).
+ * Tous les crédits du jeu synthétique sont ouverts, cas le plus défavorable : au 01/07/2025
+ * (dernière échéance), un quart d'entre eux tombe dans la fenêtre des 90 jours lue crédit par crédit.
+ * Nécessite -Dpayflow.bench.jdbc-url.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AgingReportBenchmark {
+
+    private static final LocalDate AS_OF = LocalDate.of(2025, 7, 1);
+
+    private AgingReportService agingReportService;
+    private Long merchantId;
+    private Customer customer;
+
+    @Setup
+    public void setUp(PayFlowDatabase db) {
+        agingReportService = db.bean(AgingReportService.class);
+        merchantId = db.merchantId;
+        customer = SyntheticData.withId(new Customer(), db.customerId);
+    }
+
+    @Benchmark
+    public AgingReportDto merchantReport() {
+        return agingReportService.getAgingReport(merchantId, AS_OF);
+    }
+
+    @Benchmark
+    public AgingCustomerReportDto customerDrillDown() {
+        return agingReportService.getCustomerAging(merchantId, customer, AS_OF);
+    }
+}
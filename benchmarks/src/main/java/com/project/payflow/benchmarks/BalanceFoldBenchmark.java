@@ -0,0 +1,92 @@
+package com.project.payflow.benchmarks;
+
+import com.project.payflow.entities.CustomerBalance;
+import com.project.payflow.entities.Merchant;
+import com.project.payflow.entities.Transaction;
+import com.project.payflow.entities.TransactionType;
+import com.project.payflow.repository.CustomerBalanceRepository;
+import com.project.payflow.service.BalanceService;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Soldes par client d'un merchant : recalcul en repliant les montants BigDecimal des transactions
+ * (ce que faisait le code avant customer_balances) contre lecture de la projection par BalanceService.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BalanceFoldBenchmark {
+
+    @Param({"10000", "100000"})
+    int transactions;
+
+    @Param({"500"})
+    int customers;
+
+    private List<Transaction> history;
+    private BalanceService balanceService;
+    private Long merchantId;
+
+    @Setup
+    public void setUp() {
+        SyntheticData data = new SyntheticData(42);
+        Merchant merchant = data.merchant(1);
+        merchantId = merchant.getId();
+        history = data.transactions(merchant, data.customers(merchant, customers), transactions);
+
+        List<CustomerBalance> projection = data.balances(history);
+        balanceService = new BalanceService(Stubs.repository(CustomerBalanceRepository.class,
+                Map.of("findByMerchantId", args -> projection)));
+    }
+
+    /** Repli avec Map.merge : un BigDecimal intermédiaire par transaction. */
+    @Benchmark
+    public Map<Long, BigDecimal> foldMerge() {
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        for (Transaction tx : history) {
+            BigDecimal signed = tx.getType() == TransactionType.CREDIT ? tx.getAmount() : tx.getAmount().negate();
+            balances.merge(tx.getCustomer().getId(), signed, BigDecimal::add);
+        }
+        return balances;
+    }
+
+    /** Même repli avec les collecteurs de stream. */
+    @Benchmark
+    public Map<Long, BigDecimal> foldStream() {
+        return history.stream().collect(Collectors.groupingBy(
+                tx -> tx.getCustomer().getId(),
+                Collectors.reducing(BigDecimal.ZERO,
+                        tx -> tx.getType() == TransactionType.CREDIT ? tx.getAmount() : tx.getAmount().negate(),
+                        BigDecimal::add)));
+    }
+
+    /** Repli en centimes (long), les montants ayant tous l'échelle 2 de NUMERIC(18,2). */
+    @Benchmark
+    public Map<Long, BigDecimal> foldUnscaledCents() {
+        Map<Long, long[]> cents = new HashMap<>();
+        for (Transaction tx : history) {
+            long amount = tx.getAmount().unscaledValue().longValueExact();
+            long[] total = cents.computeIfAbsent(tx.getCustomer().getId(), id -> new long[1]);
+            total[0] += tx.getType() == TransactionType.CREDIT ? amount : -amount;
+        }
+        Map<Long, BigDecimal> balances = new HashMap<>(cents.size() * 2);
+        cents.forEach((customerId, total) -> balances.put(customerId, BigDecimal.valueOf(total[0], 2)));
+        return balances;
+    }
+
+    /** Chemin actuel : une ligne de customer_balances par client, aucun repli. */
+    @Benchmark
+    public Map<Long, BigDecimal> projection() {
+        return balanceService.getBalancesByMerchant(merchantId);
+    }
+}
@@ -0,0 +1,39 @@
+package com.project.payflow.benchmarks;
+
+import com.project.payflow.dto.CreditWithRemainingDto;
+import com.project.payflow.entities.Customer;
+import com.project.payflow.entities.Merchant;
+import com.project.payflow.service.CreditService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Crédits ouverts d'un client avec leur reste dû (écran de paiement, répartition automatique).
+ * Nécessite -Dpayflow.bench.jdbc-url.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CreditServiceBenchmark {
+
+    private CreditService creditService;
+    private Merchant merchant;
+    private Customer customer;
+
+    @Setup
+    public void setUp(PayFlowDatabase db) {
+        creditService = db.bean(CreditService.class);
+        merchant = SyntheticData.withId(new Merchant(), db.merchantId);
+        customer = SyntheticData.withId(new Customer(), db.customerId);
+    }
+
+    @Benchmark
+    public List<CreditWithRemainingDto> getCreditsWithRemaining() {
+        return creditService.getCreditsWithRemaining(merchant, customer);
+    }
+}
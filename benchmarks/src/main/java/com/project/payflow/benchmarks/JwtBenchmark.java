@@ -0,0 +1,46 @@
+package com.project.payflow.benchmarks;
+
+import com.project.payflow.security.JwtService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vérification des JWT par le filtre d'authentification : signature vérifiée à chaque requête
+ * (parseToken) contre jeton déjà vérifié (verifiedClaims, cache), et génération au login.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+    private JwtService jwtService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService(10_000);
+        token = jwtService.generateToken(42L, "+2250700000042");
+        jwtService.verifiedClaims(token); // le jeton est déjà en cache, comme après la 1re requête
+    }
+
+    @Benchmark
+    public Jws<Claims> parseToken() {
+        return jwtService.parseToken(token);
+    }
+
+    @Benchmark
+    public Long extractMerchantIdCached() {
+        return jwtService.extractMerchantId(token);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken(42L, "+2250700000042");
+    }
+}
@@ -0,0 +1,130 @@
+package com.project.payflow.benchmarks;
+
+import com.project.payflow.PayFlowApplication;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Application démarrée sur une vraie base PostgreSQL au schéma PayFlow, avec un merchant synthétique
+ * créé au début du trial et supprimé (cascade) à la fin. Les tâches planifiées sont neutralisées.
+ *
+ * Base cible : -Dpayflow.bench.jdbc-url=jdbc:postgresql://localhost:5432/payflow
+ * (et -Dpayflow.bench.username / -Dpayflow.bench.password, postgres/postgres par défaut).
+ */
+@State(Scope.Benchmark)
+public class PayFlowDatabase {
+
+    @Param({"200"})
+    int customers;
+
+    // 1M : volume de la comparaison SQL / calcul en mémoire de StatsBenchmark.
+    // Un tiers de paiements : -p transactions=750000 donne 500k crédits (AgingReportBenchmark)
+    @Param({"20000", "1000000"})
+    int transactions;
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbc;
+
+    Long merchantId;
+    Long customerId; // premier client : environ transactions * 2 / 3 / customers crédits ouverts
+
+    @Setup(Level.Trial)
+    public void start() {
+        String url = System.getProperty("payflow.bench.jdbc-url");
+        if (url == null || url.isBlank()) {
+            throw new IllegalStateException("-Dpayflow.bench.jdbc-url is required for database benchmarks");
+        }
+        // Arguments de ligne de commande : ils priment sur application.properties
+        context = new SpringApplicationBuilder(PayFlowApplication.class).run(
+                "--server.port=0",
+                "--management.server.port=0",
+                "--spring.datasource.url=" + url,
+                "--spring.datasource.username=" + System.getProperty("payflow.bench.username", "postgres"),
+                "--spring.datasource.password=" + System.getProperty("payflow.bench.password", "postgres"),
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.org.springframework.security=WARN",
+                "--payflow.reminders.cron=-",
+                "--payflow.delivery.poll-interval=PT24H",
+                "--payflow.metrics.backlog-refresh=PT24H",
+                "--payflow.notifications.stream.enabled=false");
+        jdbc = context.getBean(JdbcTemplate.class);
+        seed();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        if (merchantId != null) {
+            jdbc.update("delete from payflow.merchants where id = ?", merchantId);
+        }
+        context.close();
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    // Tout est généré par la base (generate_series) : montants et dates déterministes, à 2 décimales
+    private void seed() {
+        merchantId = jdbc.queryForObject("""
+                insert into payflow.merchants (name, phone, password_hash)
+                values ('Bench merchant', ?, '-')
+                returning id
+                """, Long.class, "bench-" + System.nanoTime());
+
+        jdbc.update("""
+                insert into payflow.customers (merchant_id, name, phone)
+                select ?, 'Client ' || g, '+2250700' || g
+                from generate_series(1, ?) g
+                """, merchantId, customers);
+
+        jdbc.update("""
+                with ids as (
+                    select array_agg(id order by id) as ids
+                    from payflow.customers
+                    where merchant_id = ?
+                ),
+                rows as (
+                    select g,
+                           ids.ids[1 + g % cardinality(ids.ids)] as customer_id,
+                           g % 3 = 0 as payment,
+                           ((g::bigint * 7919) % 2500000 + 100) / 100.0 as amount,
+                           date '2025-06-01' - (g % 365) as tx_date
+                    from generate_series(1, ?) g, ids
+                )
+                insert into payflow.transactions
+                    (merchant_id, customer_id, type, amount, transaction_date, due_date, payment_method, remaining_amount)
+                select ?, customer_id,
+                       case when payment then 'PAYMENT' else 'CREDIT' end,
+                       amount,
+                       tx_date,
+                       case when payment then null else tx_date + 30 end,
+                       case when payment then 'CASH' end,
+                       case when payment then null else amount end
+                from rows
+                """, merchantId, transactions, merchantId);
+
+        // Projection telle que maintenue par BalanceService : aucun paiement n'est affecté, tous les crédits sont ouverts
+        jdbc.update("""
+                insert into payflow.customer_balances
+                    (customer_id, merchant_id, total_credits, total_payments, open_credit_amount, oldest_unpaid_due_date)
+                select t.customer_id,
+                       t.merchant_id,
+                       coalesce(sum(t.amount) filter (where t.type = 'CREDIT'), 0),
+                       coalesce(sum(t.amount) filter (where t.type = 'PAYMENT'), 0),
+                       coalesce(sum(t.remaining_amount) filter (where t.type = 'CREDIT'), 0),
+                       min(t.due_date) filter (where t.type = 'CREDIT')
+                from payflow.transactions t
+                where t.merchant_id = ?
+                group by t.customer_id, t.merchant_id
+                """, merchantId);
+
+        // Statistiques et carte de visibilité à jour, comme après l'autovacuum en production : sans elles,
+        // les premières itérations mesurent un autre plan (customer_balances estimée à une ligne)
+        jdbc.execute("vacuum analyze payflow.transactions, payflow.customers, payflow.customer_balances");
+        customerId = jdbc.queryForObject(
+                "select min(id) from payflow.customers where merchant_id = ?", Long.class, merchantId);
+    }
+}
@@ -0,0 +1,107 @@
+package com.project.payflow.benchmarks;
+
+import com.project.payflow.dto.StatsDto;
+import com.project.payflow.entities.Transaction;
+import com.project.payflow.entities.TransactionType;
+import com.project.payflow.repository.CustomerRepository;
+import com.project.payflow.service.StatsService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Agrégats du tableau de bord (GET /api/me/stats) : sans période (projection customer_balances)
+ * et sur une période (agrégat SQL sur transactions), comparés à l'ancien calcul en mémoire
+ * (suites *InMemory : entités Transaction chargées puis repliées en Java) sur le même merchant.
+ * Nécessite -Dpayflow.bench.jdbc-url.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+// 1M d'entités chargées par l'ancien calcul : le tas par défaut ne suffit pas toujours
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class StatsBenchmark {
+
+    private static final LocalDate QUARTER_FROM = LocalDate.of(2025, 3, 1);
+    private static final LocalDate QUARTER_TO = LocalDate.of(2025, 6, 1);
+
+    private StatsService statsService;
+    private EntityManagerFactory entityManagerFactory;
+    private CustomerRepository customerRepository;
+    private Long merchantId;
+
+    @Setup
+    public void setUp(PayFlowDatabase db) {
+        statsService = db.bean(StatsService.class);
+        entityManagerFactory = db.bean(EntityManagerFactory.class);
+        customerRepository = db.bean(CustomerRepository.class);
+        merchantId = db.merchantId;
+    }
+
+    @Benchmark
+    public StatsDto allTime() {
+        return statsService.getStats(merchantId, null, null);
+    }
+
+    @Benchmark
+    public StatsDto lastQuarter() {
+        return statsService.getStats(merchantId, QUARTER_FROM, QUARTER_TO);
+    }
+
+    @Benchmark
+    public StatsDto allTimeInMemory() {
+        return inMemoryStats(null, null);
+    }
+
+    @Benchmark
+    public StatsDto lastQuarterInMemory() {
+        return inMemoryStats(QUARTER_FROM, QUARTER_TO);
+    }
+
+    // Ancien StatsController : toutes les transactions de la période chargées dans un contexte de persistance
+    // neuf (comme pour une requête HTTP), puis totaux et soldes par client calculés en Java
+    private StatsDto inMemoryStats(LocalDate from, LocalDate to) {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            List<Transaction> transactions = em.createQuery("""
+                            select t from Transaction t
+                            where t.merchant.id = :merchantId
+                              and t.transactionDate between :fromDate and :toDate
+                            """, Transaction.class)
+                    .setParameter("merchantId", merchantId)
+                    .setParameter("fromDate", from != null ? from : LocalDate.of(1, 1, 1))
+                    .setParameter("toDate", to != null ? to : LocalDate.of(9999, 12, 31))
+                    .getResultList();
+
+            BigDecimal totalPayments = transactions.stream()
+                    .filter(t -> t.getType() == TransactionType.PAYMENT)
+                    .map(Transaction::getAmount)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+            Map<Long, BigDecimal> balances = new HashMap<>();
+            for (Transaction t : transactions) {
+                BigDecimal amount = t.getType() == TransactionType.CREDIT ? t.getAmount() : t.getAmount().negate();
+                balances.merge(t.getCustomer().getId(), amount, BigDecimal::add);
+            }
+
+            long clientsTotal = customerRepository.countByMerchantId(merchantId);
+            long clientsWithDebt = balances.values().stream().filter(b -> b.signum() > 0).count();
+            BigDecimal totalDue = balances.values().stream()
+                    .filter(b -> b.signum() > 0)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+            return new StatsDto(totalDue, totalPayments, clientsWithDebt, clientsTotal);
+        } finally {
+            em.close();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.project.payflow.benchmarks;
+
+import com.project.payflow.entities.Customer;
+import com.project.payflow.entities.CustomerBalance;
+import com.project.payflow.entities.Merchant;
+import com.project.payflow.entities.Transaction;
+import com.project.payflow.entities.TransactionType;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Données synthétiques reproductibles (graine fixe) : mêmes volumes et mêmes valeurs
+ * d'un run à l'autre, pour comparer deux versions du code.
+ *
+ * Les ids sont normalement attribués par la base : ils sont posés par réflexion.
+ */
+public final class SyntheticData {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 6, 1);
+
+    private final Random random;
+
+    public SyntheticData(long seed) {
+        this.random = new Random(seed);
+    }
+
+    public Merchant merchant(long id) {
+        Merchant merchant = new Merchant()
+                .setName("Bench merchant " + id)
+                .setPhone("+2250000" + id)
+                .setPasswordHash("-");
+        return withId(merchant, id);
+    }
+
+    public List<Customer> customers(Merchant merchant, int count) {
+        List<Customer> customers = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            Customer customer = new Customer()
+                    .setMerchant(merchant)
+                    .setName("Client " + i)
+                    .setPhone("+2250700" + i);
+            customers.add(withId(customer, (long) i));
+        }
+        return customers;
+    }
+
+    /** Deux crédits pour un paiement, montants à 2 décimales, dates sur l'année écoulée. */
+    public List<Transaction> transactions(Merchant merchant, List<Customer> customers, int count) {
+        List<Transaction> transactions = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            Customer customer = customers.get(random.nextInt(customers.size()));
+            boolean credit = i % 3 != 0;
+            LocalDate date = TODAY.minusDays(random.nextInt(365));
+            Transaction tx = new Transaction()
+                    .setMerchant(merchant)
+                    .setCustomer(customer)
+                    .setType(credit ? TransactionType.CREDIT : TransactionType.PAYMENT)
+                    .setAmount(amount())
+                    .setDescription(credit ? "Achat à crédit" : "Paiement")
+                    .setTransactionDate(date)
+                    .setDueDate(credit ? date.plusDays(30) : null)
+                    .setPaymentMethod(credit ? null : "CASH")
+                    .setInterestRate(credit ? new BigDecimal("2.50") : null)
+                    .setLatePenalty(credit ? new BigDecimal("500.00") : null);
+            transactions.add(withId(tx, (long) i));
+        }
+        return transactions;
+    }
+
+    /** Lignes de customer_balances telles que la projection les contiendrait pour ces transactions. */
+    public List<CustomerBalance> balances(List<Transaction> transactions) {
+        Map<Long, BigDecimal[]> totals = new LinkedHashMap<>();
+        for (Transaction tx : transactions) {
+            BigDecimal[] t = totals.computeIfAbsent(tx.getCustomer().getId(),
+                    id -> new BigDecimal[] {BigDecimal.ZERO, BigDecimal.ZERO});
+            int slot = tx.getType() == TransactionType.CREDIT ? 0 : 1;
+            t[slot] = t[slot].add(tx.getAmount());
+        }
+        List<CustomerBalance> balances = new ArrayList<>(totals.size());
+        totals.forEach((customerId, t) -> {
+            CustomerBalance b = new CustomerBalance();
+            set(b, "customerId", customerId);
+            set(b, "merchantId", transactions.get(0).getMerchant().getId());
+            set(b, "totalCredits", t[0]);
+            set(b, "totalPayments", t[1]);
+            set(b, "balance", t[0].subtract(t[1]));
+            balances.add(b);
+        });
+        return balances;
+    }
+
+    private BigDecimal amount() {
+        // 1,00 à 250 000,00 : même échelle que la colonne NUMERIC(18,2)
+        return BigDecimal.valueOf(100 + random.nextInt(25_000_000), 2);
+    }
+
+    static <T> T withId(T entity, Long id) {
+        set(entity, "id", id);
+        return entity;
+    }
+
+    private static void set(Object target, String fieldName, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), fieldName);
+        if (field == null) {
+            throw new IllegalStateException(target.getClass().getSimpleName() + " has no field " + fieldName);
+        }
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+}
@@ -0,0 +1,48 @@
+package com.project.payflow.benchmarks;
+
+import com.project.payflow.dto.TransactionDto;
+import com.project.payflow.entities.Merchant;
+import com.project.payflow.entities.Transaction;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion entité -> DTO d'une page de transactions (liste, export, pagination).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionDtoBenchmark {
+
+    @Param({"50", "1000"})
+    int pageSize;
+
+    private List<Transaction> page;
+
+    @Setup
+    public void setUp() {
+        SyntheticData data = new SyntheticData(42);
+        Merchant merchant = data.merchant(1);
+        page = data.transactions(merchant, data.customers(merchant, 200), pageSize);
+    }
+
+    @Benchmark
+    public List<TransactionDto> loop() {
+        List<TransactionDto> dtos = new ArrayList<>(page.size());
+        for (Transaction t : page) {
+            dtos.add(TransactionDto.fromEntity(t));
+        }
+        return dtos;
+    }
+
+    @Benchmark
+    public List<TransactionDto> stream() {
+        return page.stream().map(TransactionDto::fromEntity).toList();
+    }
+}
@@ -138,10 +138,7 @@ export default function ClientDetail() {
     error: clientError,
   } = useQuery({
     queryKey: ["client", clientId],
-    queryFn: async () => {
-      const allClients = await base44.entities.Client.list();
-      return allClients.find((c) => c.id === clientId);
-    },
+    queryFn: () => base44.entities.Client.get(clientId),
     enabled: clientId != null,
     retry: 2,
   });
@@ -37,13 +37,13 @@ export default function Clients() {
     queryFn: () => base44.entities.Client.list(),
   });
 
-  const { data: overdueClientIds = [] } = useQuery({
+  const { data: overdueClientRows = [] } = useQuery({
     queryKey: ["customers-overdue"],
     queryFn: () => base44.entities.Client.listOverdue(),
   });
 
   const clientOverdueStatus = Object.fromEntries(
-    overdueClientIds.map((id) => [id, true])
+    overdueClientRows.map((c) => [c.id, true])
   );
 
   // ===== CREATE CLIENT =====
@@ -73,7 +73,7 @@ export default function Clients() {
   // ===== COUNTERS =====
   const totalClients = clients.length;
   const clientsWithDebt = clients.filter((c) => c.total_due > 0).length;
-  const overdueClients = overdueClientIds.length;
+  const overdueClients = overdueClientRows.length;
 
   return (
     <div className="min-h-screen bg-gradient-to-br from-slate-50 via-white to-slate-100">
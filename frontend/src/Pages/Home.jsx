@@ -53,7 +53,7 @@ export default function Home() {
     queryFn: () => base44.entities.Stats.get(),
   });
 
-  const { data: overdueClientIds = [] } = useQuery({
+  const { data: overdueClientRows = [] } = useQuery({
     queryKey: ["customers-overdue"],
     queryFn: () => base44.entities.Client.listOverdue(),
   });
@@ -67,15 +67,15 @@ export default function Home() {
     new Intl.NumberFormat("fr-MG").format(amount || 0);
 
   const clientOverdueMap = useMemo(
-    () => Object.fromEntries(overdueClientIds.map((id) => [id, true])),
-    [overdueClientIds]
+    () => Object.fromEntries(overdueClientRows.map((c) => [c.id, true])),
+    [overdueClientRows]
   );
 
   const totalDue = Number(stats?.totalDue ?? 0);
   const totalPayments = Number(stats?.totalPayments ?? 0);
   const clientsWithDebt = stats?.clientsWithDebt ?? 0;
   const clientsTotal = stats?.clientsTotal ?? clients.length;
-  const overdueCount = overdueClientIds.length;
+  const overdueCount = overdueClientRows.length;
 
   const financialHealth = useMemo(() => {
     if (clientsWithDebt === 0) return "healthy";
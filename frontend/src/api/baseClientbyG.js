@@ -4,8 +4,10 @@ import {getToken,clearToken} from "@/lib/auth";
 import { AlertDialogCancel } from "@radix-ui/react-alert-dialog";
 
 // Backend Spring Boot
+export const API_BASE_URL = "http://localhost:8080/api";
+
 const api = axios.create({
-  baseURL: "http://localhost:8080/api",
+  baseURL: API_BASE_URL,
 });
 
  // Interceptor REQUEST: ajoute le JWT si présent
@@ -71,6 +73,18 @@ export const base44 = {
         };
       },
 
+      // Un seul client, avec son solde (sans recharger toute la liste)
+      async get(id) {
+        const res = await api.get(`/me/customers/${id}`);
+        return {
+          id: res.data.id,
+          name: res.data.name,
+          phone: res.data.phone,
+          notes: res.data.notes,
+          total_due: Number(res.data.totalDue ?? 0),
+        };
+      },
+
       async update(id, data) {
         const payload = {
           name: data.name,
@@ -90,11 +104,19 @@ export const base44 = {
       async delete(id) {
         await api.delete(`/me/customers/${id}`);
       },
-       // Liste des clients en retard (IDs uniquement)
+       // Liste des clients en retard, les plus anciens retards d'abord
       async listOverdue() {
         const res = await api.get("/me/customers/overdue");
-        // Backend retourne: List<Long>
-        return res.data; // ex: [1, 4, 7]
+        // Backend retourne: List<OverdueCustomerDto>
+        return res.data.map((c) => ({
+          id: c.id,
+          name: c.name,
+          phone: c.phone,
+          notes: c.notes,
+          total_due: Number(c.totalDue ?? 0),
+          overdue_amount: Number(c.overdueAmount ?? 0),
+          oldest_unpaid_due_date: c.oldestUnpaidDueDate,
+        }));
       },
 
     },
@@ -183,11 +205,24 @@ async getCreditPaymentHistory(creditId) {
         const res = await api.get("/me/stats", { params });
         return res.data; // { totalDue, totalPayments, clientsWithDebt, clientsTotal }
       },
+    },
+    Reports: {
+      // Balance âgée : { asOf, total, customers } (tranches notDue, days0To30, days31To60, days61To90, over90)
+      async aging(params = {}) {
+        const res = await api.get("/me/reports/aging", { params });
+        return res.data;
+      },
+
+      // Détail d'un client : { asOf, buckets, credits }
+      async agingByClient(clientId, params = {}) {
+        const res = await api.get(`/me/reports/aging/customers/${clientId}`, { params });
+        return res.data;
+      },
     },
      Notifications: {
-      // Liste des notifications
-      async list() {
-        const res = await api.get("/me/notifications");
+      // Notifications les plus récentes (50 par défaut, suite via /me/notifications/page)
+      async list(params = {}) {
+        const res = await api.get("/me/notifications", { params });
         // Backend: List<NotificationDto>
         return res.data.map((n) => ({
           id: n.id,
@@ -209,6 +244,52 @@ async getCreditPaymentHistory(creditId) {
       async markAsRead(id) {
         await api.post(`/me/notifications/${id}/read`);
       },
+
+      // Tout marquer comme lu en un seul appel
+      async markAllAsRead() {
+        const res = await api.post("/me/notifications/read-all");
+        return res.data; // { updated: number }
+      },
+
+      // Flux SSE (fetch plutôt qu'EventSource pour pouvoir envoyer le JWT).
+      // onEvent(name, data) pour "notification" et "unread-count" ; se termine quand le flux
+      // est fermé ou que signal est annulé, lève une erreur si la connexion échoue.
+      async stream(onEvent, signal) {
+        const res = await fetch(`${API_BASE_URL}/me/notifications/stream`, {
+          headers: {
+            Accept: "text/event-stream",
+            Authorization: `Bearer ${getToken()}`,
+          },
+          signal,
+        });
+        if (!res.ok || !res.body) {
+          const error = new Error(`Notification stream failed (${res.status})`);
+          error.status = res.status;
+          throw error;
+        }
+
+        const reader = res.body.pipeThrough(new TextDecoderStream()).getReader();
+        let buffer = "";
+        for (;;) {
+          const { value, done } = await reader.read();
+          if (done) return;
+          buffer += value;
+
+          let end;
+          while ((end = buffer.indexOf("\n\n")) >= 0) {
+            const block = buffer.slice(0, end);
+            buffer = buffer.slice(end + 2);
+
+            let name = "message";
+            let data = "";
+            for (const line of block.split("\n")) {
+              if (line.startsWith("event:")) name = line.slice(6).trim();
+              else if (line.startsWith("data:")) data += line.slice(5);
+            }
+            if (data) onEvent(name, JSON.parse(data));
+          }
+        }
+      },
     },
     ReminderSettings: {
         async get() {
@@ -14,6 +14,7 @@ import {
 import {
   useNotifications,
   useUnreadNotificationsCount,
+  useNotificationStream,
   useMarkNotificationAsRead,
   useMarkAllNotificationsAsRead,
 } from "@/hooks/use-notifications";
@@ -33,7 +34,8 @@ function formatDate(dateStr) {
 export default function NotificationBell() {
   const navigate = useNavigate();
   const { data: notifications = [] } = useNotifications();
-  const { data: unreadCount = 0 } = useUnreadNotificationsCount();
+  const live = useNotificationStream();
+  const { data: unreadCount = 0 } = useUnreadNotificationsCount(live);
   const markAsReadMutation = useMarkNotificationAsRead();
   const markAllMutation = useMarkAllNotificationsAsRead();
 
@@ -1,7 +1,10 @@
 // src/hooks/use-notifications.js
+import { useEffect, useState } from "react";
 import { useQuery, useMutation, useQueryClient } from "@tanstack/react-query";
 import { base44 } from "@/api/baseClientbyG";
 
+const STREAM_RETRY_MS = 5_000;
+
 export function useNotifications() {
   return useQuery({
     queryKey: ["notifications"],
@@ -9,14 +12,61 @@ export function useNotifications() {
   });
 }
 
-export function useUnreadNotificationsCount() {
+// live = flux SSE connecté : le compteur est alors poussé par le serveur, sinon on interroge toutes les 60s
+export function useUnreadNotificationsCount(live = false) {
   return useQuery({
     queryKey: ["notifications-unread-count"],
     queryFn: () => base44.entities.Notifications.unreadCount(),
-    refetchInterval: 60_000, // rafraîchit toutes les 60s (optionnel)
+    refetchInterval: live ? false : 60_000,
   });
 }
 
+// Abonnement au flux SSE des notifications ; retourne true tant qu'il est connecté.
+// En cas de coupure, nouvelle tentative après quelques secondes (polling entre-temps).
+export function useNotificationStream() {
+  const queryClient = useQueryClient();
+  const [connected, setConnected] = useState(false);
+
+  useEffect(() => {
+    const controller = new AbortController();
+    let retryTimer;
+
+    const onEvent = (name, data) => {
+      setConnected(true);
+      if (name === "unread-count") {
+        queryClient.setQueryData(["notifications-unread-count"], data.unreadCount ?? 0);
+      } else if (name === "notification") {
+        queryClient.invalidateQueries({ queryKey: ["notifications"] });
+      }
+    };
+
+    const connect = async () => {
+      try {
+        await base44.entities.Notifications.stream(onEvent, controller.signal);
+      } catch (error) {
+        if (controller.signal.aborted) return;
+        // Session expirée : le polling (axios) se charge de la déconnexion
+        if (error.status === 401 || error.status === 403) {
+          setConnected(false);
+          return;
+        }
+      }
+      if (controller.signal.aborted) return;
+      setConnected(false);
+      retryTimer = setTimeout(connect, STREAM_RETRY_MS);
+    };
+
+    connect();
+
+    return () => {
+      controller.abort();
+      clearTimeout(retryTimer);
+    };
+  }, [queryClient]);
+
+  return connected;
+}
+
 export function useMarkNotificationAsRead() {
   const queryClient = useQueryClient();
 
@@ -34,17 +84,9 @@ export function useMarkNotificationAsRead() {
 
 export function useMarkAllNotificationsAsRead() {
   const queryClient = useQueryClient();
-  const { data: notifications = [] } = useNotifications();
-
-  const unread = notifications.filter((n) => !n.read);
 
   return useMutation({
-    mutationFn: async () => {
-      // Appel en série (simple) ou en parallèle (Promise.all)
-      await Promise.all(
-        unread.map((n) => base44.entities.Notifications.markAsRead(n.id))
-      );
-    },
+    mutationFn: () => base44.entities.Notifications.markAllAsRead(),
     onSuccess: () => {
       queryClient.invalidateQueries({ queryKey: ["notifications"] });
       queryClient.invalidateQueries({ queryKey: ["notifications-unread-count"] });
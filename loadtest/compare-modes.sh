@@ -0,0 +1,58 @@
+#!/usr/bin/env bash
+# Compare débit et latences de queue des deux modes d'exécution des requêtes :
+#   platform         : pool de threads Tomcat (profil par défaut)
+#   virtual-threads  : threads virtuels + limiteur calé sur le pool Hikari
+# Les deux modes ont le même pool de connexions (POOL_SIZE, 40 par défaut comme le profil virtual-threads).
+#
+#   PHONE=... PASSWORD=... RATE=300 DURATION=60s ./loadtest/compare-modes.sh [arguments Spring...]
+#
+# Prérequis : Java 21, k6, jq et une base PayFlow accessible (arguments Spring pour la datasource).
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+JAR="$ROOT/backend/target/demo-0.0.1-SNAPSHOT-exec.jar"
+PORT="${PORT:-8080}"
+MANAGEMENT_PORT="${MANAGEMENT_PORT:-8081}"
+POOL_SIZE="${POOL_SIZE:-40}"
+cd "$ROOT/loadtest"
+mkdir -p results
+
+if [[ ! -f "$JAR" || "${REBUILD:-false}" == "true" ]]; then
+  (cd "$ROOT/backend" && ./mvnw -B -q package -DskipTests)
+fi
+
+run_mode() {
+  local mode="$1" profile="$2"
+  echo "== $mode"
+  java -jar "$JAR" --server.port="$PORT" --management.server.port="$MANAGEMENT_PORT" \
+    --spring.datasource.hikari.maximum-pool-size="$POOL_SIZE" \
+    --spring.profiles.active="$profile" "${@:3}" > "results/$mode.log" 2>&1 &
+  local pid=$!
+  trap "kill $pid 2>/dev/null || true" EXIT
+
+  for _ in $(seq 1 60); do
+    curl -fs "http://localhost:$MANAGEMENT_PORT/actuator/health" > /dev/null && break
+    sleep 1
+  done
+
+  k6 run --quiet -e BASE_URL="http://localhost:$PORT" -e MODE="$mode" me-endpoints.js || true
+
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+  trap - EXIT
+}
+
+run_mode platform default "$@"
+run_mode virtual-threads virtual-threads "$@"
+
+printf '\n%-16s %10s %10s %10s %10s %8s\n' mode "req/s" "p50 ms" "p95 ms" "p99 ms" 503
+for mode in platform virtual-threads; do
+  jq -r --arg mode "$mode" '[$mode,
+      (.metrics.http_reqs.values.rate),
+      (.metrics.http_req_duration.values.med),
+      (.metrics.http_req_duration.values["p(95)"]),
+      (.metrics.http_req_duration.values["p(99)"]),
+      (.metrics.rejected_503.values.count // 0)]
+    | "\(.[0])\t\(.[1])\t\(.[2])\t\(.[3])\t\(.[4])\t\(.[5])"' "results/$mode.json" \
+  | awk -F'\t' '{ printf "%-16s %10.1f %10.1f %10.1f %10.1f %8d\n", $1, $2, $3, $4, $5, $6 }'
+done
@@ -0,0 +1,80 @@
+// Charge de lecture sur /api/me/* (k6) : débit constant, latences p95/p99 et taux de 503.
+//
+//   k6 run -e BASE_URL=http://localhost:8080 -e PHONE=... -e PASSWORD=... -e MODE=platform me-endpoints.js
+//
+// RATE requêtes/s pendant DURATION ; résumé écrit dans results/<MODE>.json (voir compare-modes.sh).
+import http from 'k6/http';
+import { check, fail } from 'k6';
+import { Counter } from 'k6/metrics';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const MODE = __ENV.MODE || 'run';
+
+const rejected = new Counter('rejected_503');
+
+export const options = {
+  scenarios: {
+    me: {
+      executor: 'constant-arrival-rate',
+      rate: Number(__ENV.RATE || 200),
+      timeUnit: '1s',
+      duration: __ENV.DURATION || '60s',
+      preAllocatedVUs: Number(__ENV.VUS || 200),
+      maxVUs: Number(__ENV.MAX_VUS || 2000),
+    },
+  },
+  summaryTrendStats: ['avg', 'med', 'p(95)', 'p(99)', 'max'],
+  thresholds: {
+    http_req_failed: ['rate<0.01'],
+    'http_req_duration{expected_response:true}': ['p(99)<1000'],
+  },
+};
+
+// Mélange proche de l'usage de l'application (tableau de bord, listes, cloche)
+const ENDPOINTS = [
+  { path: '/api/me/notifications/unread-count', weight: 4 },
+  { path: '/api/me/transactions/page?size=50', weight: 3 },
+  { path: '/api/me/customers', weight: 2 },
+  { path: '/api/me/stats', weight: 1 },
+];
+const TOTAL_WEIGHT = ENDPOINTS.reduce((sum, e) => sum + e.weight, 0);
+
+function pickEndpoint() {
+  let r = Math.random() * TOTAL_WEIGHT;
+  for (const e of ENDPOINTS) {
+    r -= e.weight;
+    if (r < 0) return e.path;
+  }
+  return ENDPOINTS[0].path;
+}
+
+export function setup() {
+  if (__ENV.TOKEN) return { token: __ENV.TOKEN };
+  const res = http.post(
+    `${BASE_URL}/api/auth/login`,
+    JSON.stringify({ phone: __ENV.PHONE, password: __ENV.PASSWORD }),
+    { headers: { 'Content-Type': 'application/json' } },
+  );
+  if (res.status !== 200) fail(`login failed: ${res.status}`);
+  return { token: res.json('token') };
+}
+
+export default function (data) {
+  const path = pickEndpoint();
+  const res = http.get(`${BASE_URL}${path}`, {
+    headers: { Authorization: `Bearer ${data.token}` },
+    tags: { name: path.split('?')[0] },
+  });
+  if (res.status === 503) rejected.add(1);
+  check(res, { 'status 200': (r) => r.status === 200 });
+}
+
+export function handleSummary(data) {
+  return {
+    [`results/${MODE}.json`]: JSON.stringify(data, null, 2),
+    stdout: `\n${MODE}: ${data.metrics.http_reqs.values.rate.toFixed(1)} req/s, `
+      + `p95 ${data.metrics.http_req_duration.values['p(95)'].toFixed(1)} ms, `
+      + `p99 ${data.metrics.http_req_duration.values['p(99)'].toFixed(1)} ms, `
+      + `503: ${data.metrics.rejected_503 ? data.metrics.rejected_503.values.count : 0}\n`,
+  };
+}